@@ -1,8 +1,7 @@
 package GUI;
 
-import api.Edge;
+import api.CsrGraph;
 import api.Location;
-import api.Node;
 import run.Agent;
 import run.Game;
 import run.Pokemon;
@@ -13,7 +12,6 @@ import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
 
 /**
  * This class panel is a part of the frame that contains the graph
@@ -37,14 +35,13 @@ public class Panel extends JPanel
         yMin = Integer.MAX_VALUE;
         xMax = Integer.MIN_VALUE;
         yMax = Integer.MIN_VALUE;
-        Iterator<Node> nodeIter = this.game.getAlgo().getGraph().nodeIter();
-        while (nodeIter.hasNext()) //go over all the nodes to check min and max locations.
+        CsrGraph graph = this.game.getAlgo().getGraph().snapshot();
+        for (int i = 0; i < graph.nodeSize(); i++) //go over all the nodes to check min and max locations.
         {
-            Node node = nodeIter.next();
-            xMin = Math.min(node.getLocation().x(), xMin);
-            yMin = Math.min(node.getLocation().y(), yMin);
-            xMax = Math.max(node.getLocation().x(), xMax);
-            yMax = Math.max(node.getLocation().y(), yMax);
+            xMin = Math.min(graph.x(i), xMin);
+            yMin = Math.min(graph.y(i), yMin);
+            xMax = Math.max(graph.x(i), xMax);
+            yMax = Math.max(graph.y(i), yMax);
         }
         setPreferredSize(new Dimension(900, 600));
         try
@@ -69,29 +66,28 @@ public class Panel extends JPanel
     {
         super.paint(graphics);
         Graphics2D graphics2D = (Graphics2D) graphics;
-        Iterator<Node> nodeIter = this.game.getAlgo().getGraph().nodeIter();
-        while (nodeIter.hasNext()) //draw nodes
+        CsrGraph graph = this.game.getAlgo().getGraph().snapshot(); //a consistent version, even if the game thread changes the graph.
+        for (int i = 0; i < graph.nodeSize(); i++) //draw nodes
         {
-            Node node = nodeIter.next();
             graphics.setColor(Color.red);
-            int x = get_x_Scale(node.getLocation());
-            int y = get_y_Scale(node.getLocation());
+            int x = get_x_Scale(graph.x(i));
+            int y = get_y_Scale(graph.y(i));
             graphics.fillOval(x, y, 14, 14);
-            graphics.drawString("" + node.getKey(), x, y); //draw the node id above the node
+            graphics.drawString("" + graph.id(i), x, y); //draw the node id above the node
         }
-        Iterator<Edge> edgeIter = this.game.getAlgo().getGraph().edgeIter();
-        while (edgeIter.hasNext()) //draw the edges
+        for (int src = 0; src < graph.nodeSize(); src++) //draw the edges
         {
-            Edge currEdge = edgeIter.next();
-            Node src = this.game.getAlgo().getGraph().getNode(currEdge.getSrc());
-            Node dest = this.game.getAlgo().getGraph().getNode(currEdge.getDest());
-            graphics.setColor(Color.BLACK);
-            int x1=get_x_Scale(src.getLocation()) + 7;
-            int x2=get_x_Scale(dest.getLocation()) + 7;
-            int y1=get_y_Scale(src.getLocation()) + 7;
-            int y2=get_y_Scale(dest.getLocation()) + 7;
-            graphics.drawLine(x1, y1, x2 ,y2);
-            drawArrow(graphics2D, x1, y1, x2 ,y2); //draw the edge arrow to point its direction
+            for (int e = graph.outStart(src); e < graph.outEnd(src); e++)
+            {
+                int dest = graph.target(e);
+                graphics.setColor(Color.BLACK);
+                int x1=get_x_Scale(graph.x(src)) + 7;
+                int x2=get_x_Scale(graph.x(dest)) + 7;
+                int y1=get_y_Scale(graph.y(src)) + 7;
+                int y2=get_y_Scale(graph.y(dest)) + 7;
+                graphics.drawLine(x1, y1, x2 ,y2);
+                drawArrow(graphics2D, x1, y1, x2 ,y2); //draw the edge arrow to point its direction
+            }
         }
 
         graphics.setColor(Color.gray);
@@ -138,7 +134,12 @@ public class Panel extends JPanel
      */
     private int get_x_Scale(Location loc)
     {
-        return (int)((((loc.x()-xMin)/(xMax-xMin))*getWidth()*0.9)+(0.05*getWidth()));
+        return get_x_Scale(loc.x());
+    }
+
+    private int get_x_Scale(double x)
+    {
+        return (int)((((x-xMin)/(xMax-xMin))*getWidth()*0.9)+(0.05*getWidth()));
     }
 
 
@@ -150,7 +151,12 @@ public class Panel extends JPanel
      */
     private int get_y_Scale(Location loc)
     {
-        return (int)((((loc.y()-yMin)*(getHeight()-100)/(yMax-yMin))*0.9)+(0.05*(this.getHeight()-100)));
+        return get_y_Scale(loc.y());
+    }
+
+    private int get_y_Scale(double y)
+    {
+        return (int)((((y-yMin)*(getHeight()-100)/(yMax-yMin))*0.9)+(0.05*(this.getHeight()-100)));
     }
 
 
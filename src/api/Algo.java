@@ -1,9 +1,29 @@
 package api;
-import java.util.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 public class Algo
 {
+    public static final int DEFAULT_ALL_PAIRS_LIMIT = 2048; //a table of 2048 nodes takes 48MB
+    public static final int DEFAULT_TREE_CACHE_SIZE = 16; //shortest path trees kept
+
     private Graph graph;
+    private volatile CsrGraph adjacency; //the snapshot the searches run on, kept until the graph MC changes
+    private final ThreadLocal<Dijkstra> workspace = ThreadLocal.withInitial(Dijkstra::new); //search arrays reused by every query of a thread
+    private final ThreadLocal<BidirectionalDijkstra> bidirectional = ThreadLocal.withInitial(BidirectionalDijkstra::new); //point to point search arrays of a thread
+    private volatile QueueType queueType = QueueType.BINARY_HEAP; //the priority queue of the searches
+    private volatile DistanceTable allPairs; //all the distances of one snapshot, null if not computed
+    private volatile int allPairsLimit = DEFAULT_ALL_PAIRS_LIMIT;
+    private volatile ContractionHierarchy hierarchy; //null if not built
+    private volatile Landmarks landmarks; //null if not built
+    private volatile DynamicShortestPaths dynamic; //trees kept up to date while the graph changes, null if not used
+    private volatile Components components; //the strongly connected components of the last snapshot, null if not found yet
+    private final PathTreeCache trees = new PathTreeCache(DEFAULT_TREE_CACHE_SIZE); //the trees of the recently used sources
 
     public Algo(String jsonString)
     {
@@ -11,10 +31,285 @@ public class Algo
         init(g);
     }
 
+    public Algo(Graph g)
+    {
+        init(g);
+    }
+
     /**
      * This function init the algo with a new graph
      */
-    public void init(Graph g) {graph = g;}
+    public void init(Graph g)
+    {
+        if (dynamic != null)
+            dynamic.close();
+        dynamic = null;
+        graph = g;
+        adjacency = null;
+        allPairs = null;
+        hierarchy = null;
+        landmarks = null;
+        components = null;
+        trees.clear();
+    }
+
+    /**
+     * This function return the adjacency arrays of the graph. they are built once and used by all the searches
+     * until the MC of the graph changes.
+     * @return the graph snapshot
+     */
+    CsrGraph adjacency()
+    {
+        CsrGraph csr = adjacency;
+        if (csr == null || csr.getVersion() != graph.getMC()) //o(1) check, the arrays are built only after a change.
+        {
+            csr = graph.snapshot();
+            adjacency = csr;
+        }
+        return csr;
+    }
+
+    /**
+     * This function set the priority queue the searches use (the results are the same, only the speed changes)
+     * @param queueType the queue strategy
+     */
+    public void setQueueType(QueueType queueType)
+    {
+        if (queueType == null)
+            throw new IllegalArgumentException("queueType is null");
+        this.queueType = queueType;
+    }
+
+    /**
+     * return the priority queue the searches use
+     * @return QueueType
+     */
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    /**
+     * This function set the highest amount of nodes precomputeAllPairs builds a table for
+     * (the table takes 12 * nodes^2 bytes)
+     * @param maxNodes the node limit
+     */
+    public void setAllPairsLimit(int maxNodes)
+    {
+        if (maxNodes < 0)
+            throw new IllegalArgumentException("negative limit " + maxNodes);
+        allPairsLimit = maxNodes;
+    }
+
+    public int getAllPairsLimit() {
+        return allPairsLimit;
+    }
+
+    /**
+     * This function keep the shortest path trees of some nodes up to date while the graph changes
+     * (look up the DynamicShortestPaths class): every change repairs only the part of the trees it affects,
+     * and shortestPathDist and shortestPath from these nodes are lookups that never search again.
+     * it replaces the nodes given before.
+     * @param sources - the nodes the paths start from
+     */
+    public void maintainShortestPaths(int... sources)
+    {
+        DynamicShortestPaths trees = new DynamicShortestPaths(graph);
+        for (int src : sources)
+            trees.addSource(src);
+        DynamicShortestPaths old = dynamic;
+        dynamic = trees;
+        if (old != null)
+            old.close();
+    }
+
+    private DynamicShortestPaths dynamic(int src)
+    {//the maintained trees if they have the src.
+        DynamicShortestPaths trees = dynamic;
+        return trees != null && trees.hasSource(src) ? trees : null;
+    }
+
+    /**
+     * This function compute the shortest path distance and next hop of every pair of nodes (a parallel Dijkstra
+     * from every node), so shortestPathDist is one array read and shortestPath does not search.
+     * the table is used until the graph changes, then the functions search on demand again
+     * (call this function again to rebuild it).
+     * @return true if the table is ready, false if the graph has more nodes than the limit (the functions search on demand)
+     */
+    public boolean precomputeAllPairs()
+    {
+        CsrGraph csr = adjacency();
+        if (csr.nodeSize() > allPairsLimit)
+        {
+            allPairs = null;
+            return false;
+        }
+        DistanceTable table = allPairs;
+        if (table == null || table.getGraph() != csr)
+            allPairs = DistanceTable.build(csr, this::workspace);
+        return true;
+    }
+
+    /**
+     * This function set the amount of shortest path trees (of the last used sources) kept between queries,
+     * so repeated queries from a source do not search again. the first query from a source runs a point to point
+     * search, the second builds the full tree. 0 turns the cache off.
+     * @param size amount of trees, every tree takes 12 bytes per node
+     */
+    public void setTreeCacheSize(int size)
+    {
+        if (size < 0)
+            throw new IllegalArgumentException("negative size " + size);
+        trees.setCapacity(size);
+    }
+
+    public int getTreeCacheSize() {
+        return trees.getCapacity();
+    }
+
+    /**
+     * the amount of queries answered from a cached tree
+     * @return long
+     */
+    public long getTreeCacheHits() {
+        return trees.hits();
+    }
+
+    /**
+     * the amount of queries that had to search (the first miss of a source searches point to point,
+     * the next one builds and caches the tree)
+     * @return long
+     */
+    public long getTreeCacheMisses() {
+        return trees.misses();
+    }
+
+    /**
+     * the amount of trees dropped because the cache was full
+     * @return long
+     */
+    public long getTreeCacheEvictions() {
+        return trees.evictions();
+    }
+
+    /**
+     * This function build a contraction hierarchy of the graph (look up the ContractionHierarchy class), then
+     * shortestPathDist and shortestPath answer with two tiny searches instead of a Dijkstra.
+     * it is used until the graph changes.
+     * @return the hierarchy, it can be written to a file and given back with setContractionHierarchy in the next run
+     */
+    public ContractionHierarchy buildContractionHierarchy()
+    {
+        CsrGraph csr = adjacency();
+        ContractionHierarchy ch = hierarchy;
+        if (ch == null || ch.getGraph() != csr)
+        {
+            ch = ContractionHierarchy.build(csr);
+            hierarchy = ch;
+        }
+        return ch;
+    }
+
+    /**
+     * This function read a contraction hierarchy of this graph from a file (written by ContractionHierarchy.write)
+     * and use it like buildContractionHierarchy
+     * @param file the file path
+     * @return the hierarchy
+     * @throws IOException if the file is not a hierarchy of this graph
+     */
+    public ContractionHierarchy loadContractionHierarchy(Path file) throws IOException
+    {
+        ContractionHierarchy ch = ContractionHierarchy.read(file, adjacency());
+        hierarchy = ch;
+        return ch;
+    }
+
+    /**
+     * This function choose landmarks and search the distances from and to each of them, then shortestPathDist and
+     * shortestPath run an A* search with the landmarks bounds (look up the Landmarks class). it takes 2 * count * V
+     * doubles and 2 searches per landmark, lighter than the all pairs table or the contraction hierarchy.
+     * it is used until the graph changes.
+     * @param count amount of landmarks
+     * @param selection how to choose the landmarks
+     * @return the landmark nodes ids
+     */
+    public int[] buildLandmarks(int count, LandmarkSelection selection)
+    {
+        if (count <= 0)
+            throw new IllegalArgumentException("the amount of landmarks must be positive: " + count);
+        CsrGraph csr = adjacency();
+        Landmarks built = Landmarks.build(csr, count, selection, workspace());
+        landmarks = built;
+        int[] ids = built.landmarks();
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = csr.id(ids[i]);
+        return ids;
+    }
+
+    private Landmarks landmarks(CsrGraph csr)
+    {//the landmarks if they were built for this snapshot.
+        Landmarks built = landmarks;
+        return built != null && built.getGraph() == csr ? built : null;
+    }
+
+    private ContractionHierarchy hierarchy(CsrGraph csr)
+    {//the hierarchy if it was built for this snapshot.
+        ContractionHierarchy ch = hierarchy;
+        return ch != null && ch.getGraph() == csr ? ch : null;
+    }
+
+    private DistanceTable allPairs(CsrGraph csr)
+    {//the table if it was built for this snapshot.
+        DistanceTable table = allPairs;
+        return table != null && table.getGraph() == csr ? table : null;
+    }
+
+    private Dijkstra workspace()
+    {//the search arrays of the current thread, with the chosen queue.
+        Dijkstra dijkstra = workspace.get();
+        dijkstra.setQueueType(queueType);
+        return dijkstra;
+    }
+
+    BidirectionalDijkstra bidirectional()
+    {//the point to point search arrays of the current thread, with the chosen queue.
+        BidirectionalDijkstra search = bidirectional.get();
+        search.setQueueType(queueType);
+        return search;
+    }
+
+    private Components components(CsrGraph csr)
+    {//the strongly connected components of the snapshot, found once for every version of the graph in o(V+E).
+        Components found = components;
+        if (found == null || found.getGraph() != csr)
+        {
+            found = Components.build(csr);
+            components = found;
+        }
+        return found;
+    }
+
+    /**
+     * This function check if there is a path between two nodes, without a search: by the strongly connected
+     * components of the graph and the DAG between them (look up the Components class).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return true if dest can be reached from src
+     */
+    public boolean isReachable(int src, int dest)
+    {
+        CsrGraph csr = adjacency();
+        int s = csr.indexOf(src);
+        int t = csr.indexOf(dest);
+        return s >= 0 && t >= 0 && components(csr).reachable(s, t);
+    }
+
+    /**
+     * This function return the amount of strongly connected components of the graph
+     * @return 1 if every node reaches every node (0 for an empty graph)
+     */
+    public int componentCount() {
+        return components(adjacency()).count();
+    }
 
     /**
      * return the graph
@@ -35,41 +330,114 @@ public class Algo
     {// final complexity is: o(ElogV)
         if(src == dest)
             return 0.0;
-        HashMap<Integer, ArrayList<AdjListNode>> ew = new HashMap<>(); //sore for every node (key is node id) the list of adjust nodes
-        //in the form of AdjlistNode object (look up in the static class for explanation).
-        HashMap<Integer, Double> dist = new HashMap<>(); //store distance from the src to every other node.
-        Iterator<Node> nodeIter = graph.nodeIter();
-        while (nodeIter.hasNext())
+        DynamicShortestPaths maintained = dynamic(src);
+        if (maintained != null)
+            return maintained.distance(src, dest);
+        CsrGraph csr = adjacency(); //the adjacency of every node as flat arrays (look up in the CsrGraph class for explanation).
+        int s = csr.indexOf(src);
+        int t = csr.indexOf(dest);
+        if (s < 0 || t < 0)
+            return Double.MAX_VALUE;
+        DistanceTable table = allPairs(csr);
+        if (table != null)
+            return table.distance(s, t);
+        if (!components(csr).reachable(s, t)) //no search can find a path.
+            return Double.MAX_VALUE;
+        ContractionHierarchy ch = hierarchy(csr);
+        if (ch != null)
+            return ch.distance(s, t);
+        Landmarks alt = landmarks(csr);
+        if (alt != null)
+            return workspace().searchAStar(csr, s, t, v -> alt.estimate(v, t));
+        ShortestPathTree tree = trees.lookup(csr, s, workspace()); //a source queried again gets a full tree, then every dest is a lookup.
+        if (tree != null)
+            return tree.distance(t);
+        return bidirectional().search(csr, s, t); //a search from both ends, stops when they meet on the best path.
+    }
+
+    /**
+     * This function return the total weight of the shortest paths from one node to many, with one search
+     * that stops when all of them are settled (instead of a search for every dest).
+     * with the all pairs table these are lookups, with the contraction hierarchy tiny queries.
+     * @param src - start node
+     * @param dests - end (target) nodes
+     * @return the weight of the best path to every dest, in the same order (Double.MAX_VALUE if not reachable)
+     */
+    public double[] shortestPathDists(int src, int[] dests)
+    {
+        CsrGraph csr = adjacency();
+        double[] result = new double[dests.length];
+        Arrays.fill(result, Double.MAX_VALUE);
+        DynamicShortestPaths maintained = dynamic(src);
+        if (maintained != null)
         {
-            Node node = nodeIter.next();
-            dist.put(node.getKey(), Double.MAX_VALUE);
-            ew.put(node.getKey(), new ArrayList<>());
+            for (int i = 0; i < dests.length; i++)
+                result[i] = maintained.distance(src, dests[i]);
+            return result;
         }
-        dist.put(src, 0.0);
-
-        Iterator<Edge> edgeIter = graph.edgeIter();
-        while (edgeIter.hasNext())
+        int s = csr.indexOf(src);
+        if (s < 0)
+            return result;
+        Components scc = components(csr);
+        int[] targets = new int[dests.length];
+        int count = 0;
+        for (int dest : dests)
         {
-            Edge edge = edgeIter.next();
-            ew.get(edge.getSrc()).add(new AdjListNode(edge.getDest(), edge.getWeight()));
+            int t = csr.indexOf(dest);
+            if (t >= 0 && scc.reachable(s, t)) //an unreachable target would make the search settle all it reaches.
+                targets[count++] = t;
         }
-
-        PriorityQueue<AdjListNode> pq = new PriorityQueue<>(Comparator.comparingDouble(AdjListNode::getWeight));
-        pq.add(new AdjListNode(src, 0.0));
-
-        while (pq.size() > 0)
+        targets = Arrays.copyOf(targets, count);
+        DistanceTable table = allPairs(csr);
+        ContractionHierarchy ch = table == null ? hierarchy(csr) : null;
+        Dijkstra dijkstra = null;
+        if (table == null && ch == null)
         {
-            AdjListNode current = pq.poll();
-            for (AdjListNode n : ew.get(current.getVertex()))
-            {
-                if (dist.get(current.vertex) + n.weight < dist.get(n.vertex))
-                {
-                    dist.put(n.vertex, n.weight + dist.get(current.vertex));
-                    pq.add(new AdjListNode(n.getVertex(), dist.get(n.vertex)));
-                }
-            }
+            dijkstra = workspace();
+            dijkstra.searchMany(csr, s, targets);
+        }
+        for (int i = 0; i < dests.length; i++)
+        {
+            int t = csr.indexOf(dests[i]);
+            if (t < 0 || !scc.reachable(s, t))
+                continue;
+            result[i] = table != null ? table.distance(s, t) : ch != null ? ch.distance(s, t) : dijkstra.distance(t);
         }
-        return dist.get(dest);
+        return result;
+    }
+
+    /**
+     * This function return the distance matrix from many nodes to many nodes: a one to many query
+     * (look up shortestPathDists) for every src, running in parallel on the common fork join pool.
+     * @param sources - start nodes
+     * @param dests - end (target) nodes
+     * @return matrix[i][j] is the weight of the best path from sources[i] to dests[j] (Double.MAX_VALUE if not reachable)
+     */
+    public double[][] distanceMatrix(int[] sources, int[] dests)
+    {
+        double[][] matrix = new double[sources.length][];
+        IntStream.range(0, sources.length).parallel().forEach(i -> matrix[i] = shortestPathDists(sources[i], dests));
+        return matrix;
+    }
+
+    /**
+     * This function return the cost matrix from many nodes to many edges: the distance to the edge src
+     * plus the edge weight (the cost of passing an edge with a pokemon on it), look up distanceMatrix.
+     * @param sources - start nodes
+     * @param edges - the edges to pass
+     * @return matrix[i][j] is the cost from sources[i] through edges[j] (Double.MAX_VALUE if not reachable)
+     */
+    public double[][] distanceMatrix(int[] sources, Edge[] edges)
+    {
+        int[] dests = new int[edges.length];
+        for (int j = 0; j < edges.length; j++)
+            dests[j] = edges[j].getSrc();
+        double[][] matrix = distanceMatrix(sources, dests);
+        for (double[] row : matrix)
+            for (int j = 0; j < edges.length; j++)
+                if (row[j] != Double.MAX_VALUE)
+                    row[j] += edges[j].getWeight();
+        return matrix;
     }
 
     /**
@@ -81,134 +449,268 @@ public class Algo
      */
     public LinkedList<Node> shortestPath(int src, int dest)
     {// final complexity is: o(ElogV)
-        HashMap<Integer, ArrayList<AdjListNode>> ew = new HashMap<>();
-        HashMap<Integer, Double> dist = new HashMap<>();
-        Iterator<Node> nodeIter = graph.nodeIter();
-        HashMap<Integer, Integer> preNode = new HashMap<>();
-        while (nodeIter.hasNext())
-        {
-            Node node = nodeIter.next();
-            dist.put(node.getKey(), Double.MAX_VALUE);
-            ew.put(node.getKey(), new ArrayList<>());
-        }
-        dist.put(src, 0.0);
-
-        Iterator<Edge> edgeIter = graph.edgeIter();
-        while (edgeIter.hasNext())
+        DynamicShortestPaths maintained = dynamic(src);
+        if (maintained != null)
         {
-            Edge edge = edgeIter.next();
-            ew.get(edge.getSrc()).add(new AdjListNode(edge.getDest(), edge.getWeight()));
+            int[] ids = maintained.path(src, dest);
+            if (ids == null)
+                return null;
+            LinkedList<Node> path = new LinkedList<>();
+            for (int id : ids)
+                path.add(graph.getNode(id));
+            return path;
         }
+        CsrGraph csr = adjacency();
+        int[] path = path(csr, csr.indexOf(src), csr.indexOf(dest));
+        return path == null ? null : checkPath(csr, path);
+    }
 
-        PriorityQueue<AdjListNode> pq = new PriorityQueue<>(Comparator.comparingDouble(AdjListNode::getWeight));
-        pq.add(new AdjListNode(src, 0.0));
+    /**
+     * This function return the shortest path like shortestPath, as a primitive array of node ids
+     * (no Node list is built)
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return the ids of the nodes from src to dest, null if there is no path
+     */
+    public int[] shortestPathIds(int src, int dest)
+    {
+        DynamicShortestPaths maintained = dynamic(src);
+        if (maintained != null)
+            return maintained.path(src, dest);
+        CsrGraph csr = adjacency();
+        int[] path = path(csr, csr.indexOf(src), csr.indexOf(dest));
+        if (path == null)
+            return null;
+        for (int i = 0; i < path.length; i++)
+            path[i] = csr.id(path[i]);
+        return path;
+    }
 
-        while (pq.size() > 0)
+    /**
+     * This function return the first step of the shortest path: the node to go to from src.
+     * with the all pairs table it is a lookup, else the path is found like in shortestPath but no list is built.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return the id of the node after src on the best path, -1 if src == dest or there is no path
+     */
+    public int nextHop(int src, int dest)
+    {
+        if (src == dest)
+            return -1;
+        DynamicShortestPaths maintained = dynamic(src);
+        if (maintained != null)
+            return maintained.nextHop(src, dest);
+        CsrGraph csr = adjacency();
+        int s = csr.indexOf(src);
+        int t = csr.indexOf(dest);
+        if (s < 0 || t < 0)
+            return -1;
+        DistanceTable table = allPairs(csr);
+        if (table != null)
         {
-            AdjListNode current = pq.poll();
-            for (AdjListNode n : ew.get(current.getVertex()))
-                if (dist.get(current.vertex) + n.weight < dist.get(n.vertex))
-                {
-                    dist.put(n.vertex, n.weight + dist.get(current.vertex));
-                    pq.add(new AdjListNode(n.getVertex(), dist.get(n.vertex)));
-                    preNode.put(n.vertex, current.vertex);
-                    if (n.vertex == dest)
-                        return checkPath(preNode, src, dest);
-                }
+            int hop = table.nextHop(s, t);
+            return hop < 0 ? -1 : csr.id(hop);
         }
-        return null;
+        int[] path = path(csr, s, t);
+        return path == null ? -1 : csr.id(path[1]);
     }
 
-    private LinkedList<Node> checkPath(HashMap<Integer, Integer> preNode, int src, int dest)
-    {//the value of each cell in the hash map is the node id we need to reach before going to the node id represented
-        // by its key (therefore we start from the dest id).
-        LinkedList<Node> list = new LinkedList<>();
-        while (dest != src)
+    private int[] path(CsrGraph csr, int s, int t)
+    {//the shortest path as dense indices, from the fastest structure there is.
+        if (s < 0 || t < 0)
+            return null;
+        DistanceTable table = allPairs(csr);
+        if (table != null)
         {
-            list.addFirst(graph.getNode(dest));
-            dest = preNode.get(dest);
+            int[] path = table.path(s, t);
+            if (path != null)
+                return path;
+            if (table.distance(s, t) == Dijkstra.INFINITY)
+                return null;
         }
-        list.addFirst(graph.getNode(src));
-        return list;
+        else if (!components(csr).reachable(s, t))
+            return null;
+        ContractionHierarchy ch = hierarchy(csr);
+        if (ch != null)
+            return ch.path(s, t);
+        Landmarks alt = landmarks(csr);
+        if (alt != null)
+        {
+            Dijkstra dijkstra = workspace();
+            if (dijkstra.searchAStar(csr, s, t, v -> alt.estimate(v, t)) == Dijkstra.INFINITY)
+                return null;
+            return dijkstra.path(t);
+        }
+        ShortestPathTree tree = trees.lookup(csr, s, workspace());
+        if (tree != null)
+            return tree.path(t);
+        BidirectionalDijkstra search = bidirectional();
+        if (search.search(csr, s, t) == Dijkstra.INFINITY)
+            return null;
+        return search.path();
     }
 
+    /**
+     * This function return the shortest path dist like shortestPathDist, with an A* search: the search is led
+     * toward the dest by the straight line distance (scaled by the lowest weight to length ratio of the edges, so it
+     * never overestimates), and settles only a part of the nodes.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return the weight of the best path
+     */
+    public double shortestPathDistAStar(int src, int dest)
+    {
+        if (src == dest)
+            return 0.0;
+        CsrGraph csr = adjacency();
+        int s = csr.indexOf(src);
+        int t = csr.indexOf(dest);
+        if (s < 0 || t < 0 || !components(csr).reachable(s, t))
+            return Double.MAX_VALUE;
+        return workspace().searchAStar(csr, s, t);
+    }
 
     /**
-     * This function return a node that from him to the farthest node in graph
-     * it will be the shortest from all the nodes
-     * @return the chosen Node
+     * This function return the shortest path like shortestPath, with an A* search (look up shortestPathDistAStar)
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return Node list of the best path
      */
-    public Node center()
+    public LinkedList<Node> shortestPathAStar(int src, int dest)
     {
-        HashMap<Integer, ArrayList<AdjListNode>> ew = new HashMap<>(); //save all the edges weights
+        CsrGraph csr = adjacency();
+        int s = csr.indexOf(src);
+        int t = csr.indexOf(dest);
+        if (s < 0 || t < 0 || !components(csr).reachable(s, t))
+            return null;
+        Dijkstra dijkstra = workspace();
+        if (dijkstra.searchAStar(csr, s, t) == Dijkstra.INFINITY)
+            return null;
+        return checkPath(csr, dijkstra.path(t));
+    }
 
-        Iterator<Node> nodeIter = graph.nodeIter();
-        while (nodeIter.hasNext())
-            ew.put(nodeIter.next().getKey(), new ArrayList<>());
+    private LinkedList<Node> checkPath(CsrGraph csr, int[] path)
+    {//turn the dense indices of a path (from the src to the dest) into the graph nodes.
+        LinkedList<Node> list = new LinkedList<>();
+        for (int v : path)
+            list.add(node(csr, v));
+        return list;
+    }
 
-        Iterator<Edge> edgeIter = graph.edgeIter();
-        while (edgeIter.hasNext())
-        {
-            Edge edge = edgeIter.next();
-            ew.get(edge.getSrc()).add(new AdjListNode(edge.getDest(), edge.getWeight()));
-        }
+    private Node node(CsrGraph csr, int v)
+    {//the live node of the graph, or the detached snapshot node if it was removed since.
+        Node node = graph.getNode(csr.id(v));
+        return node != null ? node : csr.node(v);
+    }
 
-        int id=0; //represent the center node id.
-        double lowestWeight= Double.MAX_VALUE;
-        Iterator<Node> nodesIter = graph.nodeIter();
-        while (nodesIter.hasNext())
-        { //go over all the nodes and find the lowest value.
-            Node node = nodesIter.next();
-            double newWeight = dijkstra(node.getKey(), ew);
-            if(newWeight == -1)
-                return null;
-            if (lowestWeight > newWeight)
-            {
-                id = node.getKey();
-                lowestWeight = newWeight;
-            }
-        }
-        return graph.getNode(id);
+
+    /**
+     * This function return a node that from him to the farthest node in graph
+     * it will be the shortest from all the nodes. the searches run in parallel on the common fork join pool.
+     * @return the chosen Node, null if the graph is empty or not connected
+     */
+    public Node center() {
+        return center(ForkJoinPool.commonPool());
     }
 
-    private double dijkstra(int src, HashMap<Integer, ArrayList<AdjListNode>> ew)
+    /**
+     * This function return the center node (look up center()), with the searches running on a given pool
+     * @param pool the pool the searches run on
+     * @return the chosen Node, null if the graph is empty or not connected
+     */
+    public Node center(ForkJoinPool pool)
     {
-        // the function is for the center algorithm. its build like the previous versions but here we
-        // will return the highest result instead of result for a given destination value.
+        CsrGraph csr = adjacency(); //save all the edges weights
+        if (csr.nodeSize() == 0 || components(csr).count() > 1) //some node does not reach all, no search is needed.
+            return null;
+        int index = pool == ForkJoinPool.commonPool() ? centerIndex(csr) : pool.submit(() -> centerIndex(csr)).join();
+        return index < 0 ? null : node(csr, index);
+    }
 
-        HashMap<Integer, Double> dist = new HashMap<>();
-        Iterator<Node> nodeIter = graph.nodeIter();
-        while (nodeIter.hasNext())
+    private int centerIndex(CsrGraph csr)
+    {// one full search from every node (every worker thread uses its own workspace), then a parallel min reduction:
+        // the lowest eccentricity wins, ties go to the lower index (like a loop over the nodes).
+        int n = csr.nodeSize();
+        double[] eccentricity = new double[n];
+        AtomicBoolean disconnected = new AtomicBoolean();
+        IntStream.range(0, n).parallel().forEach(i ->
         {
-            Node node = nodeIter.next();
-            dist.put(node.getKey(), Double.MAX_VALUE);
-        }
-        dist.put(src, 0.0);
-
-        PriorityQueue<AdjListNode> pq = new PriorityQueue<>(Comparator.comparingDouble(AdjListNode::getWeight));
-        pq.add(new AdjListNode(src, 0.0));
+            double e = disconnected.get() ? -1 : eccentricity(workspace(), csr, i); //no need to search after a node did not reach all.
+            eccentricity[i] = e;
+            if (e == -1)
+                disconnected.set(true);
+        });
+        if (disconnected.get())
+            return -1;
+        return IntStream.range(0, n).parallel().reduce((a, b) ->
+                eccentricity[b] < eccentricity[a] || (eccentricity[b] == eccentricity[a] && b < a) ? b : a).getAsInt();
+    }
 
-        while (pq.size() > 0)
+    /**
+     * This function return the same node as center(), without a search from every node: every evaluated node u
+     * gives bounds for the eccentricity of all the other nodes (Takes-Kosters), from a forward search (its
+     * eccentricity and d(u,v)) and a backward search (d(v,u)):
+     * ecc(v) >= d(v,u) and ecc(v) >= ecc(u) - d(u,v). a node whose lower bound is higher than the best eccentricity
+     * found can not be the center, so it is never searched. the next node evaluated is the one with the lowest bound.
+     * @return the center, its eccentricity and the amount of searches (the node is null if the graph is empty or not connected)
+     */
+    public CenterResult boundedCenter()
+    {
+        CsrGraph csr = adjacency();
+        int n = csr.nodeSize();
+        if (components(csr).count() > 1) //not connected like center(), known without a search.
+            return new CenterResult(null, Double.MAX_VALUE, 0);
+        double[] lower = new double[n]; //lower bound of every node eccentricity
+        double[] forward = new double[n]; //distances from the evaluated node
+        boolean[] resolved = new boolean[n]; //evaluated, or pruned by its lower bound
+        Dijkstra dijkstra = workspace();
+        int best = -1;
+        double bestEccentricity = Double.MAX_VALUE;
+        int searches = 0;
+        while (true)
         {
-            AdjListNode current = pq.poll();
-            for (AdjListNode n : ew.get(current.getVertex()))
+            int u = -1; //the unresolved node with the lowest bound (ties to the lowest index)
+            for (int v = 0; v < n; v++)
+                if (!resolved[v] && (u < 0 || lower[v] < lower[u]))
+                    u = v;
+            if (u < 0)
+                break;
+            double eccentricity = eccentricity(dijkstra, csr, u);
+            searches++;
+            if (eccentricity == -1) //u does not reach all, not connected like center().
+                return new CenterResult(null, Double.MAX_VALUE, searches);
+            for (int v = 0; v < n; v++)
+                forward[v] = dijkstra.distance(v);
+            dijkstra.searchBackward(csr, u);
+            searches++;
+            if (dijkstra.settledCount() < n) //some node does not reach u, so it does not reach all.
+                return new CenterResult(null, Double.MAX_VALUE, searches);
+            resolved[u] = true;
+            if (eccentricity < bestEccentricity || (eccentricity == bestEccentricity && u < best))
             {
-                if (dist.get(current.vertex) + n.weight < dist.get(n.vertex))
-                {
-                    dist.put(n.vertex, n.weight + dist.get(current.vertex));
-                    pq.add(new AdjListNode(n.getVertex(), dist.get(n.vertex)));
-                }
+                best = u;
+                bestEccentricity = eccentricity;
+            }
+            double limit = bestEccentricity * (1 + 1e-9); //a bit of slack so rounding in the bounds never prunes a tie.
+            for (int v = 0; v < n; v++)
+            {
+                if (resolved[v])
+                    continue;
+                lower[v] = Math.max(lower[v], Math.max(dijkstra.distance(v), eccentricity - forward[v]));
+                if (lower[v] > limit)
+                    resolved[v] = true;
             }
         }
-        double max = -1;
-        for (Double weight: dist.values()) //check for the max distance value.
-        {
-            if(weight > max)
-                max = weight;
-            if(weight == Double.MAX_VALUE) //represent that the graph is not connected. so we will return -1 because
-                // all nodes id are positive integers.
-                return -1;
-        }
-        return max;
+        return best < 0 ? new CenterResult(null, Double.MAX_VALUE, searches) : new CenterResult(node(csr, best), bestEccentricity, searches);
+    }
+
+    private static double eccentricity(Dijkstra dijkstra, CsrGraph csr, int src)
+    {
+        // the function is for the center algorithm. it runs a full search and return the highest distance
+        // settled instead of the distance of a given destination.
+        dijkstra.search(csr, src, -1);
+        if (dijkstra.settledCount() < csr.nodeSize()) //represent that the graph is not connected. so we will return -1.
+            return -1;
+        return dijkstra.maxSettled();
     }
 }
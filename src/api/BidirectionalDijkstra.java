@@ -0,0 +1,170 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class runs a bidirectional Dijkstra between two nodes of a CsrGraph: a forward search from the source over
+ * the out edges and a backward search from the target over the in edges, always advancing the side with the lower
+ * queue key. every edge relaxed into a node reached by the other side gives a path, and the search stops when the two
+ * lowest queue keys add up to at least the best path found. both sides grow to about half the radius, so it settles
+ * far fewer nodes than a one sided search. like Dijkstra the arrays are stamped so a search does not clear them,
+ * and a workspace is not thread safe.
+ */
+final class BidirectionalDijkstra
+{
+    private final Side forward = new Side();
+    private final Side backward = new Side();
+    private QueueType queueType;
+    private int settled; //amount of nodes settled by the last search, both sides
+    private int meet; //the node where the best path of the last search goes from one side to the other, -1 if none
+
+    BidirectionalDijkstra() {
+        this(QueueType.BINARY_HEAP);
+    }
+
+    BidirectionalDijkstra(QueueType queueType) {
+        setQueueType(queueType);
+    }
+
+    /**
+     * change the priority queues of the next searches. the stop rule needs the exact lowest key of a side,
+     * so the radix and Dial queues are replaced by a binary heap.
+     */
+    void setQueueType(QueueType queueType)
+    {
+        if (queueType == this.queueType)
+            return;
+        this.queueType = queueType;
+        QueueType heap = queueType == QueueType.RADIX_HEAP || queueType == QueueType.DIAL ? QueueType.BINARY_HEAP : queueType;
+        forward.queue = heap.create();
+        backward.queue = heap.create();
+    }
+
+    /**
+     * search the shortest path between two nodes
+     * @param g the graph
+     * @param src dense index of the source
+     * @param target dense index of the target
+     * @return the distance, Dijkstra.INFINITY if the target is not reachable
+     */
+    double search(CsrGraph g, int src, int target)
+    {
+        forward.reset(g, src);
+        backward.reset(g, target);
+        settled = 0;
+        meet = src == target ? src : -1;
+        double best = src == target ? 0.0 : Dijkstra.INFINITY;
+        while (!forward.queue.isEmpty() && !backward.queue.isEmpty())
+        {
+            double forwardKey = forward.queue.minKey();
+            double backwardKey = backward.queue.minKey();
+            if (forwardKey + backwardKey >= best) //no path through an unsettled node can be shorter.
+                break;
+            if (forwardKey <= backwardKey)
+                best = advance(forward, backward, g.outOffsets, g.outTargets, g.outWeights, best);
+            else
+                best = advance(backward, forward, g.inOffsets, g.inSources, g.inWeights, best);
+        }
+        return best;
+    }
+
+    private double advance(Side side, Side other, int[] offsets, int[] targets, double[] weights, double best)
+    {//settle the lowest node of a side and relax its edges, return the best path length found so far.
+        int u = side.queue.pollMin();
+        side.done[u] = side.epoch;
+        settled++;
+        double du = side.dist[u];
+        for (int e = offsets[u]; e < offsets[u + 1]; e++)
+        {
+            int v = targets[e];
+            double d = du + weights[e];
+            if (side.stamp[v] != side.epoch)
+            {
+                side.stamp[v] = side.epoch;
+                side.dist[v] = d;
+                side.pred[v] = u;
+                side.queue.insert(v, d);
+            }
+            else if (d < side.dist[v] && side.done[v] != side.epoch)
+            {
+                side.dist[v] = d;
+                side.pred[v] = u;
+                side.queue.decreaseKey(v, d);
+            }
+            if (other.stamp[v] == other.epoch && side.dist[v] + other.dist[v] < best) //the two sides meet at v.
+            {
+                best = side.dist[v] + other.dist[v];
+                meet = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * amount of nodes settled by the last search (both sides)
+     */
+    int settledCount() {
+        return settled;
+    }
+
+    /**
+     * build the path of the last search, as dense indices
+     * @return the path from the source to the target, null if the target was not reached
+     */
+    int[] path()
+    {
+        if (meet < 0)
+            return null;
+        int forwardLength = 0; //the forward part, from the source to the meeting node
+        for (int v = meet; v >= 0; v = forward.pred[v])
+            forwardLength++;
+        int backwardLength = 0; //the backward part, after the meeting node on to the target
+        for (int v = backward.pred[meet]; v >= 0; v = backward.pred[v])
+            backwardLength++;
+        int[] path = new int[forwardLength + backwardLength];
+        int i = forwardLength - 1;
+        for (int v = meet; v >= 0; v = forward.pred[v])
+            path[i--] = v;
+        i = forwardLength;
+        for (int v = backward.pred[meet]; v >= 0; v = backward.pred[v])
+            path[i++] = v;
+        return path;
+    }
+
+    /**
+     * the search arrays of one direction
+     */
+    private static final class Side
+    {
+        private double[] dist = new double[0];
+        private int[] pred = new int[0]; //the previous node (the next node toward the target on the backward side)
+        private int[] stamp = new int[0];
+        private int[] done = new int[0];
+        private int epoch;
+        private NodeQueue queue;
+
+        private void reset(CsrGraph g, int start)
+        {
+            int n = g.nodeSize();
+            if (stamp.length < n)
+            {
+                int size = Math.max(n, stamp.length * 2);
+                dist = Arrays.copyOf(dist, size);
+                pred = Arrays.copyOf(pred, size);
+                stamp = Arrays.copyOf(stamp, size);
+                done = Arrays.copyOf(done, size);
+            }
+            queue.reset(g);
+            if (++epoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(done, 0);
+                epoch = 1;
+            }
+            stamp[start] = epoch;
+            dist[start] = 0.0;
+            pred[start] = -1;
+            queue.insert(start, 0.0);
+        }
+    }
+}
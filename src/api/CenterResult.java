@@ -0,0 +1,43 @@
+package api;
+
+/**
+ * This class is the result of Algo.boundedCenter: the center node, its eccentricity
+ * and the amount of Dijkstra searches it took to find it
+ */
+public class CenterResult
+{
+    private final Node node;
+    private final double eccentricity;
+    private final int searches;
+
+    public CenterResult(Node node, double eccentricity, int searches)
+    {
+        this.node = node;
+        this.eccentricity = eccentricity;
+        this.searches = searches;
+    }
+
+    /**
+     * get the center node
+     * @return Node, null if the graph is empty or not connected
+     */
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * get the distance from the center to the farthest node
+     * @return double, Double.MAX_VALUE if there is no center
+     */
+    public double getEccentricity() {
+        return eccentricity;
+    }
+
+    /**
+     * get the amount of Dijkstra searches (forward and backward) that were run
+     * @return int
+     */
+    public int getSearches() {
+        return searches;
+    }
+}
@@ -0,0 +1,225 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class is the strongly connected components of a graph snapshot (Tarjan's algorithm, without recursion)
+ * and the condensation DAG: a node for every component and an edge between two components if an edge of the graph
+ * goes between them. Tarjan finishes a component after all the components it reaches, so the component numbers are
+ * a reverse topological order: an edge of the DAG always goes from a higher number to a lower one.
+ * a node reaches another if they are in the same component, or the DAG reaches the component of the other.
+ * for up to CLOSURE_LIMIT components the whole DAG reachability is kept as bitsets, so a check is o(1).
+ */
+final class Components
+{
+    static final int CLOSURE_LIMIT = 4096; //a closure of 4096 components takes 2MB
+
+    private final CsrGraph graph;
+    private final int[] component; //dense index -> component number
+    private final int count;
+    private final int[] dagOffsets; //component -> first position in dagTargets
+    private final int[] dagTargets; //the components every component has an edge to
+    private final long[] closure; //component * words -> bitset of the components it reaches, null if too many
+    private final int words;
+
+    private Components(CsrGraph graph, int[] component, int count, int[] dagOffsets, int[] dagTargets)
+    {
+        this.graph = graph;
+        this.component = component;
+        this.count = count;
+        this.dagOffsets = dagOffsets;
+        this.dagTargets = dagTargets;
+        words = (count + 63) >>> 6;
+        if (count > CLOSURE_LIMIT)
+        {
+            closure = null;
+            return;
+        }
+        closure = new long[count * words];
+        for (int c = 0; c < count; c++)
+        {// the components c has an edge to have lower numbers, so their rows are complete.
+            int row = c * words;
+            closure[row + (c >>> 6)] |= 1L << c;
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++)
+            {
+                int other = dagTargets[e] * words;
+                for (int w = 0; w < words; w++)
+                    closure[row + w] |= closure[other + w];
+            }
+        }
+    }
+
+    /**
+     * find the components of a snapshot, in o(V+E)
+     * @param graph the snapshot
+     * @return the components
+     */
+    static Components build(CsrGraph graph)
+    {
+        int n = graph.nodeSize();
+        int[] offsets = graph.outOffsets;
+        int[] targets = graph.outTargets;
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        int[] order = new int[n]; //the visit number of every node (from 1), 0 if not visited
+        int[] low = new int[n];
+        int[] edge = new int[n]; //the next out edge to look at, of every node on the call stack
+        int[] calls = new int[n]; //the call stack of the depth first search
+        int[] open = new int[n]; //the Tarjan stack: the visited nodes without a component yet
+        int visited = 0, count = 0, top = 0;
+        for (int root = 0; root < n; root++)
+        {
+            if (order[root] != 0)
+                continue;
+            int depth = 0;
+            calls[depth++] = root;
+            order[root] = low[root] = ++visited;
+            edge[root] = offsets[root];
+            open[top++] = root;
+            while (depth > 0)
+            {
+                int u = calls[depth - 1];
+                if (edge[u] < offsets[u + 1])
+                {
+                    int v = targets[edge[u]++];
+                    if (order[v] == 0) //a tree edge, go down.
+                    {
+                        order[v] = low[v] = ++visited;
+                        edge[v] = offsets[v];
+                        open[top++] = v;
+                        calls[depth++] = v;
+                    }
+                    else if (component[v] < 0) //v is still open, so it is an ancestor in the same component.
+                        low[u] = Math.min(low[u], order[v]);
+                    continue;
+                }
+                depth--;
+                if (low[u] == order[u]) //u is the first node of its component, close it.
+                {
+                    int v;
+                    do
+                    {
+                        v = open[--top];
+                        component[v] = count;
+                    } while (v != u);
+                    count++;
+                }
+                if (depth > 0)
+                {
+                    int parent = calls[depth - 1];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
+            }
+        }
+
+        // the DAG: the edges between different components, every pair once. the nodes are grouped by component
+        // so all the edges of one component are added together and a mark per target is enough to drop duplicates.
+        int[] members = new int[count + 1];
+        for (int v = 0; v < n; v++)
+            members[component[v] + 1]++;
+        for (int c = 0; c < count; c++)
+            members[c + 1] += members[c];
+        int[] byComponent = new int[n];
+        int[] fill = Arrays.copyOf(members, count);
+        for (int v = 0; v < n; v++)
+            byComponent[fill[component[v]]++] = v;
+        int[] dagOffsets = new int[count + 1];
+        int[] dagTargets = new int[16];
+        int[] mark = new int[count];
+        Arrays.fill(mark, -1);
+        int size = 0;
+        for (int c = 0; c < count; c++)
+        {
+            dagOffsets[c] = size;
+            for (int i = members[c]; i < members[c + 1]; i++)
+            {
+                int u = byComponent[i];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++)
+                {
+                    int d = component[targets[e]];
+                    if (d == c || mark[d] == c)
+                        continue;
+                    mark[d] = c;
+                    if (size == dagTargets.length)
+                        dagTargets = Arrays.copyOf(dagTargets, size * 2);
+                    dagTargets[size++] = d;
+                }
+            }
+        }
+        dagOffsets[count] = size;
+        return new Components(graph, component, count, dagOffsets, Arrays.copyOf(dagTargets, size));
+    }
+
+    /**
+     * get the snapshot the components were found for
+     * @return CsrGraph
+     */
+    CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * amount of strongly connected components (1 if the graph is strongly connected)
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * the component of a node
+     * @param v dense index
+     * @return component number, 0 .. count()-1
+     */
+    int component(int v) {
+        return component[v];
+    }
+
+    /**
+     * the components a component has an edge to in the DAG
+     * @param c component number
+     * @return component numbers, all lower than c
+     */
+    int[] successors(int c) {
+        return Arrays.copyOfRange(dagTargets, dagOffsets[c], dagOffsets[c + 1]);
+    }
+
+    /**
+     * true if there is a path from a node to another
+     * @param src dense index
+     * @param dest dense index
+     * @return boolean
+     */
+    boolean reachable(int src, int dest)
+    {
+        int from = component[src], to = component[dest];
+        if (from == to)
+            return true;
+        if (to > from) //the DAG edges only go down.
+            return false;
+        if (closure != null)
+            return (closure[from * words + (to >>> 6)] & (1L << to)) != 0;
+        // too many components for the closure: a depth first search on the DAG, only over the components
+        // between the two numbers.
+        boolean[] seen = new boolean[from - to + 1];
+        int[] stack = new int[from - to + 1];
+        int depth = 0;
+        stack[depth++] = from;
+        seen[from - to] = true;
+        while (depth > 0)
+        {
+            int c = stack[--depth];
+            for (int e = dagOffsets[c]; e < dagOffsets[c + 1]; e++)
+            {
+                int d = dagTargets[e];
+                if (d == to)
+                    return true;
+                if (d > to && !seen[d - to])
+                {
+                    seen[d - to] = true;
+                    stack[depth++] = d;
+                }
+            }
+        }
+        return false;
+    }
+}
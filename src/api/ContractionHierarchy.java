@@ -0,0 +1,656 @@
+package api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * This class is a contraction hierarchy of a graph snapshot, for very fast distance queries on big maps.
+ * the nodes are contracted one by one, the node with the lowest edge difference first (shortcuts it needs minus
+ * the edges it removes, plus its contracted neighbours so the order spreads over the map). contracting a node adds
+ * a shortcut u -> x for every path u -> v -> x that has no other path (witness) as short, so the distances between
+ * the remaining nodes stay the same. a node rank is its contraction order.
+ * a query runs a forward search from the source that only goes up in rank and a backward search from the target
+ * that only comes down in rank. both are tiny, and the shortest path goes up and then down through the node where
+ * they meet. every shortcut keeps the two edges it replaces, so a path is unpacked back into graph nodes.
+ * a hierarchy is bound to the snapshot it was built for, it can be written to a file and read back for
+ * a snapshot of the same graph (checked by a fingerprint of the nodes and edges).
+ * it is immutable and the queries are thread safe (every thread has its own search arrays).
+ */
+public final class ContractionHierarchy
+{
+    private static final int MAGIC = 0x50474348; //"PGCH"
+    private static final int FORMAT = 1;
+    private static final int WITNESS_LIMIT = 500; //a witness search settles at most this many nodes, then the shortcut is added
+    private static final int SIMULATE_LIMIT = 50; //the same for the priority of a node, a few extra shortcuts only change the order
+
+    private final CsrGraph graph;
+    private final long fingerprint;
+    private final int[] rank; //dense index -> contraction order
+    private final int edges; //the graph edges (same positions as in the snapshot) and then the shortcuts
+    private final int[] edgeSrc;
+    private final int[] edgeDest;
+    private final double[] edgeWeight;
+    private final int[] edgeFirst; //the two edges a shortcut replaces, -1 for a graph edge
+    private final int[] edgeSecond;
+    private final int[] upOffsets; //node -> its edges to higher rank nodes, for the forward search
+    private final int[] upEdges;
+    private final int[] downOffsets; //node -> the edges coming to it from higher rank nodes, for the backward search
+    private final int[] downEdges;
+    private final ThreadLocal<Query> queries = ThreadLocal.withInitial(Query::new);
+
+    private ContractionHierarchy(CsrGraph graph, long fingerprint, int[] rank, int edges, int[] edgeSrc, int[] edgeDest,
+                                 double[] edgeWeight, int[] edgeFirst, int[] edgeSecond)
+    {
+        this.graph = graph;
+        this.fingerprint = fingerprint;
+        this.rank = rank;
+        this.edges = edges;
+        this.edgeSrc = edgeSrc;
+        this.edgeDest = edgeDest;
+        this.edgeWeight = edgeWeight;
+        this.edgeFirst = edgeFirst;
+        this.edgeSecond = edgeSecond;
+
+        //every edge (except self loops) goes up from its src or comes down to its dest, counting sort by that node.
+        int n = rank.length;
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int e = 0; e < edges; e++)
+        {
+            if (edgeSrc[e] == edgeDest[e])
+                continue;
+            if (rank[edgeDest[e]] > rank[edgeSrc[e]])
+                upOffsets[edgeSrc[e] + 1]++;
+            else
+                downOffsets[edgeDest[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            upOffsets[i + 1] += upOffsets[i];
+            downOffsets[i + 1] += downOffsets[i];
+        }
+        upEdges = new int[upOffsets[n]];
+        downEdges = new int[downOffsets[n]];
+        int[] upFill = Arrays.copyOf(upOffsets, n);
+        int[] downFill = Arrays.copyOf(downOffsets, n);
+        for (int e = 0; e < edges; e++)
+        {
+            if (edgeSrc[e] == edgeDest[e])
+                continue;
+            if (rank[edgeDest[e]] > rank[edgeSrc[e]])
+                upEdges[upFill[edgeSrc[e]]++] = e;
+            else
+                downEdges[downFill[edgeDest[e]]++] = e;
+        }
+    }
+
+    /**
+     * build the hierarchy of a graph snapshot
+     * @param graph the snapshot
+     * @return the hierarchy
+     */
+    public static ContractionHierarchy build(CsrGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /**
+     * get the snapshot the hierarchy was built (or read) for
+     * @return CsrGraph
+     */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * the amount of shortcuts added by the contraction
+     * @return int
+     */
+    public int shortcutCount() {
+        return edges - graph.edgeSize();
+    }
+
+    /**
+     * the contraction order of a node
+     * @param index dense index
+     * @return int, 0 for the first contracted node
+     */
+    public int rank(int index) {
+        return rank[index];
+    }
+
+    /**
+     * the shortest path distance between two nodes
+     * @param src dense index
+     * @param dest dense index
+     * @return the distance, Double.MAX_VALUE if dest is not reachable
+     */
+    public double distance(int src, int dest) {
+        return queries.get().search(src, dest);
+    }
+
+    /**
+     * the shortest path between two nodes, with the shortcuts unpacked into graph nodes
+     * @param src dense index
+     * @param dest dense index
+     * @return the dense indices from src to dest, null if dest is not reachable
+     */
+    public int[] path(int src, int dest)
+    {
+        Query query = queries.get();
+        if (query.search(src, dest) == Dijkstra.INFINITY)
+            return null;
+        return query.path(src, dest);
+    }
+
+    /**
+     * write the hierarchy to a file, read it back with read(file, graph)
+     * @param file the file path
+     */
+    public void write(Path file) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(rank.length);
+            out.writeInt(edges);
+            out.writeLong(fingerprint);
+            for (int r : rank)
+                out.writeInt(r);
+            for (int e = graph.edgeSize(); e < edges; e++) //the graph edges are taken from the snapshot when reading.
+            {
+                out.writeInt(edgeSrc[e]);
+                out.writeInt(edgeDest[e]);
+                out.writeDouble(edgeWeight[e]);
+                out.writeInt(edgeFirst[e]);
+                out.writeInt(edgeSecond[e]);
+            }
+        }
+    }
+
+    /**
+     * read a hierarchy written by write(file)
+     * @param file the file path
+     * @param graph a snapshot of the graph the hierarchy was built for
+     * @return the hierarchy, bound to the given snapshot
+     * @throws IOException if the file is not a hierarchy, or was built for another graph
+     */
+    public static ContractionHierarchy read(Path file, CsrGraph graph) throws IOException
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if (in.readInt() != MAGIC)
+                throw new IOException("not a contraction hierarchy: " + file);
+            int format = in.readInt();
+            if (format != FORMAT)
+                throw new IOException("unsupported contraction hierarchy format " + format + ": " + file);
+            int n = in.readInt();
+            int edges = in.readInt();
+            long fingerprint = in.readLong();
+            int m = graph.edgeSize();
+            if (n != graph.nodeSize() || edges < m || fingerprint != fingerprint(graph))
+                throw new IOException("the contraction hierarchy was built for another graph: " + file);
+            int[] rank = new int[n];
+            for (int i = 0; i < n; i++)
+                rank[i] = in.readInt();
+            int[] edgeSrc = new int[edges], edgeDest = new int[edges], edgeFirst = new int[edges], edgeSecond = new int[edges];
+            double[] edgeWeight = new double[edges];
+            graphEdges(graph, edgeSrc, edgeDest, edgeWeight, edgeFirst, edgeSecond);
+            for (int e = m; e < edges; e++)
+            {
+                edgeSrc[e] = in.readInt();
+                edgeDest[e] = in.readInt();
+                edgeWeight[e] = in.readDouble();
+                edgeFirst[e] = in.readInt();
+                edgeSecond[e] = in.readInt();
+                if (!valid(edgeSrc[e], n) || !valid(edgeDest[e], n) || !valid(edgeFirst[e], e) || !valid(edgeSecond[e], e))
+                    throw new IOException("corrupted contraction hierarchy: " + file);
+            }
+            for (int r : rank)
+                if (!valid(r, n))
+                    throw new IOException("corrupted contraction hierarchy: " + file);
+            return new ContractionHierarchy(graph, fingerprint, rank, edges, edgeSrc, edgeDest, edgeWeight, edgeFirst, edgeSecond);
+        }
+        catch (EOFException e)
+        {
+            throw new IOException("corrupted contraction hierarchy: " + file, e);
+        }
+    }
+
+    private static boolean valid(int value, int limit) {
+        return value >= 0 && value < limit;
+    }
+
+    private static void graphEdges(CsrGraph graph, int[] edgeSrc, int[] edgeDest, double[] edgeWeight, int[] edgeFirst, int[] edgeSecond)
+    {//the first edges are the edges of the snapshot, at their positions.
+        for (int u = 0; u < graph.nodeSize(); u++)
+            for (int e = graph.outStart(u); e < graph.outEnd(u); e++)
+            {
+                edgeSrc[e] = u;
+                edgeDest[e] = graph.target(e);
+                edgeWeight[e] = graph.weight(e);
+                edgeFirst[e] = -1;
+                edgeSecond[e] = -1;
+            }
+    }
+
+    /**
+     * a hash of the node ids and the edges of a snapshot, the same for every snapshot of the same graph
+     */
+    static long fingerprint(CsrGraph graph)
+    {
+        long h = 0xcbf29ce484222325L; //FNV-1a over the ints and the weight bits
+        h = mix(h, graph.nodeSize());
+        h = mix(h, graph.edgeSize());
+        for (int i = 0; i < graph.nodeSize(); i++)
+        {
+            h = mix(h, graph.id(i));
+            h = mix(h, graph.outEnd(i));
+        }
+        for (int e = 0; e < graph.edgeSize(); e++)
+        {
+            h = mix(h, graph.target(e));
+            h = mix(h, Double.doubleToLongBits(graph.weight(e)));
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        return (h ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * the contraction of a snapshot: the edges are kept in growing arrays (the graph edges, then the shortcuts),
+     * with the out and in edge lists of every node, and a contracted node is only skipped, never removed.
+     */
+    private static final class Builder
+    {
+        private final CsrGraph graph;
+        private final int n;
+        private int edges;
+        private int[] edgeSrc, edgeDest, edgeFirst, edgeSecond;
+        private double[] edgeWeight;
+        private final int[][] out, in; //node -> edge ids
+        private final int[] outSize, inSize;
+        private final boolean[] contracted;
+        private final int[] deletedNeighbours; //contracted neighbours of a node, part of its priority
+        private final int[] updatedBy; //the last contracted node (+1) a node was updated for, so it is updated once
+        private final double[] witnessDist; //the witness searches
+        private final int[] witnessStamp;
+        private final int[] targetStamp; //the out neighbours of the contracted node, marked with the witness epoch
+        private int witnessEpoch;
+        private final IndexedHeap witnessHeap = new IndexedHeap();
+
+        private Builder(CsrGraph graph)
+        {
+            this.graph = graph;
+            n = graph.nodeSize();
+            int m = graph.edgeSize();
+            int capacity = Math.max(16, m * 2);
+            edgeSrc = new int[capacity];
+            edgeDest = new int[capacity];
+            edgeFirst = new int[capacity];
+            edgeSecond = new int[capacity];
+            edgeWeight = new double[capacity];
+            graphEdges(graph, edgeSrc, edgeDest, edgeWeight, edgeFirst, edgeSecond);
+            edges = m;
+            out = new int[n][];
+            in = new int[n][];
+            outSize = new int[n];
+            inSize = new int[n];
+            for (int v = 0; v < n; v++)
+            {
+                out[v] = new int[Math.max(2, graph.outEnd(v) - graph.outStart(v))];
+                in[v] = new int[Math.max(2, graph.inEnd(v) - graph.inStart(v))];
+            }
+            for (int e = 0; e < m; e++)
+                link(e);
+            contracted = new boolean[n];
+            deletedNeighbours = new int[n];
+            updatedBy = new int[n];
+            witnessDist = new double[n];
+            witnessStamp = new int[n];
+            targetStamp = new int[n];
+            witnessHeap.ensureCapacity(n);
+        }
+
+        private void link(int e)
+        {//add an edge to the out list of its src and the in list of its dest.
+            int u = edgeSrc[e], v = edgeDest[e];
+            if (outSize[u] == out[u].length)
+                out[u] = Arrays.copyOf(out[u], outSize[u] * 2);
+            out[u][outSize[u]++] = e;
+            if (inSize[v] == in[v].length)
+                in[v] = Arrays.copyOf(in[v], inSize[v] * 2);
+            in[v][inSize[v]++] = e;
+        }
+
+        private void addShortcut(int u, int x, double w, int first, int second)
+        {
+            if (edges == edgeSrc.length)
+            {
+                int size = edges * 2;
+                edgeSrc = Arrays.copyOf(edgeSrc, size);
+                edgeDest = Arrays.copyOf(edgeDest, size);
+                edgeFirst = Arrays.copyOf(edgeFirst, size);
+                edgeSecond = Arrays.copyOf(edgeSecond, size);
+                edgeWeight = Arrays.copyOf(edgeWeight, size);
+            }
+            edgeSrc[edges] = u;
+            edgeDest[edges] = x;
+            edgeWeight[edges] = w;
+            edgeFirst[edges] = first;
+            edgeSecond[edges] = second;
+            link(edges++);
+        }
+
+        private ContractionHierarchy build()
+        {// lazy updates: a popped node gets its priority again, if it is not the lowest any more it goes back to the queue.
+            int[] rank = new int[n];
+            IndexedHeap order = new IndexedHeap();
+            order.ensureCapacity(n);
+            order.clear();
+            for (int v = 0; v < n; v++)
+                order.insert(v, priority(v));
+            int next = 0;
+            while (!order.isEmpty())
+            {
+                int v = order.pollMin();
+                double p = priority(v);
+                if (!order.isEmpty() && p > order.minKey())
+                {
+                    order.insert(v, p);
+                    continue;
+                }
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = next++;
+                for (int i = 0; i < outSize[v]; i++) //the neighbours lose their edges to v and get a new priority.
+                    update(edgeDest[out[v][i]], v, order);
+                for (int i = 0; i < inSize[v]; i++)
+                    update(edgeSrc[in[v][i]], v, order);
+            }
+            return new ContractionHierarchy(graph, fingerprint(graph), rank, edges, Arrays.copyOf(edgeSrc, edges),
+                    Arrays.copyOf(edgeDest, edges), Arrays.copyOf(edgeWeight, edges), Arrays.copyOf(edgeFirst, edges),
+                    Arrays.copyOf(edgeSecond, edges));
+        }
+
+        private void update(int u, int v, IndexedHeap order)
+        {//after a neighbour v of u was contracted: drop the edges of u to contracted nodes, and update its priority.
+            if (contracted[u] || updatedBy[u] == v + 1)
+                return;
+            updatedBy[u] = v + 1;
+            deletedNeighbours[u]++;
+            int size = 0;
+            for (int i = 0; i < outSize[u]; i++)
+                if (!contracted[edgeDest[out[u][i]]])
+                    out[u][size++] = out[u][i];
+            outSize[u] = size;
+            size = 0;
+            for (int i = 0; i < inSize[u]; i++)
+                if (!contracted[edgeSrc[in[u][i]]])
+                    in[u][size++] = in[u][i];
+            inSize[u] = size;
+            if (order.contains(u))
+                order.changeKey(u, priority(u));
+        }
+
+        private double priority(int v)
+        {//the edge difference: the shortcuts the contraction adds minus the edges it removes, plus the deleted neighbours.
+            int removed = 0;
+            for (int i = 0; i < outSize[v]; i++)
+                if (!contracted[edgeDest[out[v][i]]])
+                    removed++;
+            for (int i = 0; i < inSize[v]; i++)
+                if (!contracted[edgeSrc[in[v][i]]])
+                    removed++;
+            return contract(v, true) - removed + deletedNeighbours[v];
+        }
+
+        private int contract(int v, boolean simulate)
+        {//the shortcuts needed around v, added unless this is a simulation. returns their amount.
+            int added = 0;
+            for (int i = 0; i < inSize[v]; i++)
+            {
+                int a = in[v][i];
+                int u = edgeSrc[a];
+                if (u == v || contracted[u])
+                    continue;
+                nextWitnessEpoch();
+                double maxOut = -1;
+                int targets = 0;
+                for (int j = 0; j < outSize[v]; j++)
+                {
+                    int x = edgeDest[out[v][j]];
+                    if (x == v || x == u || contracted[x])
+                        continue;
+                    maxOut = Math.max(maxOut, edgeWeight[out[v][j]]);
+                    if (targetStamp[x] != witnessEpoch)
+                    {
+                        targetStamp[x] = witnessEpoch;
+                        targets++;
+                    }
+                }
+                if (targets == 0)
+                    continue;
+                witness(u, v, edgeWeight[a] + maxOut, targets, simulate ? SIMULATE_LIMIT : WITNESS_LIMIT);
+                for (int j = 0; j < outSize[v]; j++)
+                {
+                    int b = out[v][j];
+                    int x = edgeDest[b];
+                    if (x == v || x == u || contracted[x])
+                        continue;
+                    double w = edgeWeight[a] + edgeWeight[b];
+                    if (witnessStamp[x] == witnessEpoch && witnessDist[x] <= w) //a path as short without v.
+                        continue;
+                    if (hasEdge(u, x, w))
+                        continue;
+                    added++;
+                    if (!simulate)
+                        addShortcut(u, x, w, a, b);
+                }
+            }
+            return added;
+        }
+
+        private boolean hasEdge(int u, int x, double w)
+        {//true if u already has an edge to x that is not longer than w (maybe a shortcut added for another middle node).
+            for (int i = 0; i < outSize[u]; i++)
+            {
+                int e = out[u][i];
+                if (edgeDest[e] == x && edgeWeight[e] <= w)
+                    return true;
+            }
+            return false;
+        }
+
+        private void nextWitnessEpoch()
+        {
+            if (++witnessEpoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(witnessStamp, 0);
+                Arrays.fill(targetStamp, 0);
+                witnessEpoch = 1;
+            }
+        }
+
+        private void witness(int u, int skip, double limit, int targets, int maxSettled)
+        {// a small Dijkstra from u that does not go through skip or contracted nodes. it stops when all the targets
+            // are settled, above limit, or after maxSettled nodes.
+            witnessHeap.clear();
+            witnessStamp[u] = witnessEpoch;
+            witnessDist[u] = 0.0;
+            witnessHeap.insert(u, 0.0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && witnessHeap.minKey() <= limit && settled++ < maxSettled)
+            {
+                int y = witnessHeap.pollMin();
+                if (targetStamp[y] == witnessEpoch && --targets == 0)
+                    break;
+                double dy = witnessDist[y];
+                for (int i = 0; i < outSize[y]; i++)
+                {
+                    int e = out[y][i];
+                    int z = edgeDest[e];
+                    if (z == skip || contracted[z])
+                        continue;
+                    double d = dy + edgeWeight[e];
+                    if (witnessStamp[z] != witnessEpoch)
+                    {
+                        witnessStamp[z] = witnessEpoch;
+                        witnessDist[z] = d;
+                        witnessHeap.insert(z, d);
+                    }
+                    else if (d < witnessDist[z] && witnessHeap.contains(z))
+                    {
+                        witnessDist[z] = d;
+                        witnessHeap.decreaseKey(z, d);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * the search arrays of the queries of one thread
+     */
+    private final class Query
+    {
+        private final double[] forwardDist = new double[rank.length];
+        private final double[] backwardDist = new double[rank.length];
+        private final int[] forwardEdge = new int[rank.length]; //the edge a node was reached by, -1 for the start
+        private final int[] backwardEdge = new int[rank.length];
+        private final int[] forwardStamp = new int[rank.length];
+        private final int[] backwardStamp = new int[rank.length];
+        private final IndexedHeap forward = new IndexedHeap();
+        private final IndexedHeap backward = new IndexedHeap();
+        private int epoch;
+        private int meet; //the highest node of the best path
+
+        private Query()
+        {
+            forward.ensureCapacity(rank.length);
+            backward.ensureCapacity(rank.length);
+        }
+
+        private double search(int src, int dest)
+        {
+            if (++epoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(forwardStamp, 0);
+                Arrays.fill(backwardStamp, 0);
+                epoch = 1;
+            }
+            forward.clear();
+            backward.clear();
+            forwardStamp[src] = epoch;
+            forwardDist[src] = 0.0;
+            forwardEdge[src] = -1;
+            forward.insert(src, 0.0);
+            backwardStamp[dest] = epoch;
+            backwardDist[dest] = 0.0;
+            backwardEdge[dest] = -1;
+            backward.insert(dest, 0.0);
+            double best = Dijkstra.INFINITY;
+            meet = -1;
+            while (!forward.isEmpty() || !backward.isEmpty())
+            {
+                boolean up = backward.isEmpty() || (!forward.isEmpty() && forward.minKey() <= backward.minKey());
+                IndexedHeap heap = up ? forward : backward;
+                if (heap.minKey() >= best) //this side can not find a shorter path any more.
+                {
+                    heap.clear();
+                    continue;
+                }
+                int u = heap.pollMin();
+                double[] dist = up ? forwardDist : backwardDist;
+                int[] stamp = up ? forwardStamp : backwardStamp;
+                int[] reachedBy = up ? forwardEdge : backwardEdge;
+                double[] otherDist = up ? backwardDist : forwardDist;
+                int[] otherStamp = up ? backwardStamp : forwardStamp;
+                double du = dist[u];
+                if (otherStamp[u] == epoch && du + otherDist[u] < best)
+                {
+                    best = du + otherDist[u];
+                    meet = u;
+                }
+                int[] offsets = up ? upOffsets : downOffsets;
+                int[] list = up ? upEdges : downEdges;
+                for (int i = offsets[u]; i < offsets[u + 1]; i++)
+                {
+                    int e = list[i];
+                    int v = up ? edgeDest[e] : edgeSrc[e];
+                    double d = du + edgeWeight[e];
+                    if (stamp[v] != epoch)
+                    {
+                        stamp[v] = epoch;
+                        dist[v] = d;
+                        reachedBy[v] = e;
+                        heap.insert(v, d);
+                    }
+                    else if (d < dist[v] && heap.contains(v))
+                    {
+                        dist[v] = d;
+                        reachedBy[v] = e;
+                        heap.decreaseKey(v, d);
+                    }
+                }
+            }
+            return best;
+        }
+
+        private int[] path = new int[16]; //the path being unpacked
+        private int length;
+        private int[] stack = new int[16];
+
+        private int[] path(int src, int dest)
+        {//the edges from src up to the meeting node and from it down to dest, every one unpacked into graph nodes.
+            int count = 0; //the forward edges are reached from the meeting node back to src
+            for (int v = meet; forwardEdge[v] >= 0; v = edgeSrc[forwardEdge[v]])
+                count++;
+            int[] up = new int[count];
+            for (int v = meet, i = count - 1; i >= 0; v = edgeSrc[forwardEdge[v]], i--)
+                up[i] = forwardEdge[v];
+            length = 0;
+            add(src);
+            for (int e : up)
+                unpack(e);
+            for (int v = meet; backwardEdge[v] >= 0; v = edgeDest[backwardEdge[v]])
+                unpack(backwardEdge[v]);
+            return Arrays.copyOf(path, length);
+        }
+
+        private void add(int v)
+        {
+            if (length == path.length)
+                path = Arrays.copyOf(path, length * 2);
+            path[length++] = v;
+        }
+
+        private void unpack(int edge)
+        {//add the nodes after the src of an edge to the path, a shortcut is replaced by its two edges (with a stack, not recursion).
+            int top = 0;
+            stack[top++] = edge;
+            while (top > 0)
+            {
+                int e = stack[--top];
+                if (edgeFirst[e] < 0)
+                {
+                    add(edgeDest[e]);
+                    continue;
+                }
+                if (top + 2 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = edgeSecond[e];
+                stack[top++] = edgeFirst[e];
+            }
+        }
+    }
+}
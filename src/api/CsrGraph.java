@@ -0,0 +1,561 @@
+package api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * This class is an immutable compressed sparse row (CSR) snapshot of a Graph.
+ * every node id is remapped to a dense index (0 .. nodeSize()-1, ordered by id), and the edges
+ * coming out of index i are stored in the range outStart(i) .. outEnd(i)-1 of flat primitive arrays.
+ * the edges coming into every node are stored the same way so algorithms can also search backwards.
+ */
+public final class CsrGraph
+{
+    final int[] ids; //dense index -> node id (ascending)
+    final int[] indexTable; //node id - ids[0] -> dense index (-1 if missing), null when the ids are too sparse
+    final double[] x;
+    final double[] y;
+    final double[] z;
+    private final Node[] nodes; //detached copies of the nodes, created on demand from the snapshot coordinates
+    final int[] outOffsets; //size nodeSize()+1
+    final int[] outTargets; //dense index of the edge dest
+    final double[] outWeights;
+    final int[] inOffsets; //size nodeSize()+1
+    final int[] inSources; //dense index of the edge src
+    final double[] inWeights;
+    private final int version; //the MC of the graph when the snapshot was taken
+    private final double minWeight, maxWeight; //the lowest and highest edge weight (0 when there are no edges)
+    private volatile double heuristicScale = Double.NaN; //computed on the first A* search
+
+    CsrGraph(int[] ids, double[] x, double[] y, double[] z, int[] outOffsets, int[] outTargets, double[] outWeights, int version)
+    {
+        this(ids, buildIndexTable(ids), new Node[ids.length], x, y, z, outOffsets, outTargets, outWeights, version);
+    }
+
+    private CsrGraph(int[] ids, int[] indexTable, Node[] nodes, double[] x, double[] y, double[] z, int[] outOffsets, int[] outTargets, double[] outWeights, int version)
+    {
+        this.ids = ids;
+        this.indexTable = indexTable;
+        this.nodes = nodes;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.version = version;
+        this.minWeight = min(outWeights);
+        this.maxWeight = max(outWeights);
+
+        //the in arrays are the transpose of the out arrays (counting sort by target).
+        int n = ids.length;
+        int m = outTargets.length;
+        inOffsets = new int[n + 1];
+        inSources = new int[m];
+        inWeights = new double[m];
+        for (int e = 0; e < m; e++)
+            inOffsets[outTargets[e] + 1]++;
+        for (int i = 0; i < n; i++)
+            inOffsets[i + 1] += inOffsets[i];
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        for (int i = 0; i < n; i++)
+            for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++)
+            {
+                int pos = fill[outTargets[e]]++;
+                inSources[pos] = i;
+                inWeights[pos] = outWeights[e];
+            }
+    }
+
+    private static int[] buildIndexTable(int[] ids)
+    {//a direct lookup table is only worth it when the ids are reasonably dense.
+        if (ids.length == 0)
+            return null;
+        long range = (long) ids[ids.length - 1] - ids[0] + 1;
+        if (range > 4L * ids.length + 64)
+            return null;
+        int[] table = new int[(int) range];
+        Arrays.fill(table, -1);
+        for (int i = 0; i < ids.length; i++)
+            table[ids[i] - ids[0]] = i;
+        return table;
+    }
+
+    /**
+     * build a snapshot from the nodes and edges of a given graph
+     * @param g the graph to copy
+     * @return the new snapshot
+     */
+    static CsrGraph of(Graph g)
+    {
+        int n = g.nodeSize();
+        int[] ids = new int[n];
+        int k = 0;
+        Iterator<Node> nodeIter = g.nodeIter();
+        while (nodeIter.hasNext())
+            ids[k++] = nodeIter.next().getKey();
+        Arrays.sort(ids);
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            int slot = g.getNode(ids[i]).slot(); //read the coordinates arrays of the graph directly.
+            x[i] = g.x(slot);
+            y[i] = g.y(slot);
+            z[i] = g.z(slot);
+        }
+
+        int[] srcIndex = new int[g.edgeSize()];
+        int[] destIndex = new int[g.edgeSize()];
+        double[] w = new double[g.edgeSize()];
+        int m = 0;
+        int[] outOffsets = new int[n + 1];
+        int[] indexTable = buildIndexTable(ids);
+        Iterator<Edge> edgeIter = g.edgeIter();
+        while (edgeIter.hasNext())
+        {
+            Edge edge = edgeIter.next();
+            int s = indexOf(ids, indexTable, edge.getSrc());
+            int d = indexOf(ids, indexTable, edge.getDest());
+            if (s < 0 || d < 0) //an edge to a node that is not in the graph is ignored.
+                continue;
+            srcIndex[m] = s;
+            destIndex[m] = d;
+            w[m] = edge.getWeight();
+            outOffsets[s + 1]++;
+            m++;
+        }
+        for (int i = 0; i < n; i++)
+            outOffsets[i + 1] += outOffsets[i];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+        int[] fill = Arrays.copyOf(outOffsets, n);
+        for (int e = 0; e < m; e++)
+        {
+            int pos = fill[srcIndex[e]]++;
+            targets[pos] = destIndex[e];
+            weights[pos] = w[e];
+        }
+        return new CsrGraph(ids, indexTable, new Node[n], x, y, z, outOffsets, targets, weights, g.getMC());
+    }
+
+    /**
+     * build a new mutable graph with the nodes and edges of the snapshot
+     * @return Graph
+     */
+    public Graph toGraph()
+    {
+        Graph g = new Graph();
+        try (Graph.Batch batch = g.batch(nodeSize(), edgeSize()))
+        {
+            for (int i = 0; i < nodeSize(); i++)
+                batch.addNode(new Node(ids[i], x[i], y[i], z[i]));
+            for (int i = 0; i < nodeSize(); i++)
+                for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++)
+                    batch.connect(ids[i], ids[outTargets[e]], outWeights[e]);
+        }
+        return g;
+    }
+
+    /**
+     * write the snapshot to a binary file that can be opened later with map(file). the file layout is:
+     * a header (magic, format, node count, edge count, version), then the node ids and x, y, z coordinates,
+     * then the out offsets, targets and weights, and the in offsets, sources and weights.
+     * all the values are little endian and every array starts at a multiple of 8 bytes.
+     * @param file path of the new file
+     */
+    public void write(Path file) throws IOException
+    {
+        int n = nodeSize();
+        int m = edgeSize();
+        long size = SnapshotLayout.size(n, m);
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("graph too large for a snapshot file");
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            SnapshotLayout layout = new SnapshotLayout(n, m);
+            buf.putInt(0, SnapshotLayout.MAGIC).putInt(4, SnapshotLayout.FORMAT).putInt(8, n).putInt(12, m).putInt(16, version);
+            layout.ints(buf, layout.ids, n).put(ids);
+            layout.doubles(buf, layout.x, n).put(x);
+            layout.doubles(buf, layout.y, n).put(y);
+            layout.doubles(buf, layout.z, n).put(z);
+            layout.ints(buf, layout.outOffsets, n + 1).put(outOffsets);
+            layout.ints(buf, layout.outTargets, m).put(outTargets);
+            layout.doubles(buf, layout.outWeights, m).put(outWeights);
+            layout.ints(buf, layout.inOffsets, n + 1).put(inOffsets);
+            layout.ints(buf, layout.inSources, m).put(inSources);
+            layout.doubles(buf, layout.inWeights, m).put(inWeights);
+            buf.force();
+        }
+    }
+
+    /**
+     * open a snapshot file written by write(file). the file is memory mapped and every array is copied
+     * in bulk, so there is no parsing and no object per node or edge.
+     * the copy is deliberate: the searches index plain int[] and double[] arrays in their inner loops, and reading
+     * them through the mapped buffers would need a second version of every algorithm. a bulk copy of the mapped
+     * pages is a memcpy, far from the cost of parsing the json.
+     * the arrays are checked before they are used (ids ascending, offsets in order, every target in range, the in
+     * edges the transpose of the out edges), so a damaged file is an IOException and not a failure somewhere later.
+     * @param file path of the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file can not be read or is not a valid snapshot
+     */
+    public static CsrGraph map(Path file) throws IOException
+    {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (ch.size() < SnapshotLayout.HEADER || ch.size() > Integer.MAX_VALUE)
+                throw new IOException("not a graph snapshot: " + file);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt(0) != SnapshotLayout.MAGIC)
+                throw new IOException("not a graph snapshot: " + file);
+            if (buf.getInt(4) != SnapshotLayout.FORMAT)
+                throw new IOException("unsupported graph snapshot format " + buf.getInt(4) + ": " + file);
+            int n = buf.getInt(8);
+            int m = buf.getInt(12);
+            int version = buf.getInt(16);
+            if (n < 0 || m < 0 || ch.size() != SnapshotLayout.size(n, m))
+                throw new IOException("corrupted graph snapshot: " + file);
+            SnapshotLayout layout = new SnapshotLayout(n, m);
+            int[] ids = new int[n];
+            double[] x = new double[n], y = new double[n], z = new double[n];
+            int[] outOffsets = new int[n + 1], inOffsets = new int[n + 1];
+            int[] outTargets = new int[m], inSources = new int[m];
+            double[] outWeights = new double[m], inWeights = new double[m];
+            layout.ints(buf, layout.ids, n).get(ids);
+            layout.doubles(buf, layout.x, n).get(x);
+            layout.doubles(buf, layout.y, n).get(y);
+            layout.doubles(buf, layout.z, n).get(z);
+            layout.ints(buf, layout.outOffsets, n + 1).get(outOffsets);
+            layout.ints(buf, layout.outTargets, m).get(outTargets);
+            layout.doubles(buf, layout.outWeights, m).get(outWeights);
+            layout.ints(buf, layout.inOffsets, n + 1).get(inOffsets);
+            layout.ints(buf, layout.inSources, m).get(inSources);
+            layout.doubles(buf, layout.inWeights, m).get(inWeights);
+            for (int i = 1; i < n; i++)
+                if (ids[i] <= ids[i - 1])
+                    throw new IOException("corrupted graph snapshot, node ids not ascending: " + file);
+            if (!validEdges(outOffsets, outTargets, n))
+                throw new IOException("corrupted graph snapshot, bad edge arrays: " + file);
+            // the in arrays are built again from the out arrays like in of(graph), and the stored ones must be the
+            // same, so the backward searches can never disagree with the forward ones.
+            CsrGraph g = new CsrGraph(ids, x, y, z, outOffsets, outTargets, outWeights, version);
+            if (!Arrays.equals(g.inOffsets, inOffsets) || !Arrays.equals(g.inSources, inSources)
+                    || !Arrays.equals(g.inWeights, inWeights))
+                throw new IOException("corrupted graph snapshot, in edges do not match the out edges: " + file);
+            return g;
+        }
+    }
+
+    private static boolean validEdges(int[] offsets, int[] ends, int n)
+    {//offsets from 0 to the edge count without going back, and every other end a dense index.
+        if (offsets[0] != 0 || offsets[n] != ends.length)
+            return false;
+        for (int i = 0; i < n; i++)
+            if (offsets[i + 1] < offsets[i])
+                return false;
+        for (int v : ends)
+            if (v < 0 || v >= n)
+                return false;
+        return true;
+    }
+
+    /**
+     * This class holds the byte offsets of the arrays in a snapshot file
+     */
+    private static final class SnapshotLayout
+    {
+        static final int MAGIC = 0x50474B53; //"PGKS"
+        static final int FORMAT = 1;
+        static final int HEADER = 24;
+
+        final long ids, x, y, z, outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights, end;
+
+        SnapshotLayout(int n, int m)
+        {
+            ids = HEADER;
+            x = align(ids + 4L * n);
+            y = x + 8L * n;
+            z = y + 8L * n;
+            outOffsets = z + 8L * n;
+            outTargets = align(outOffsets + 4L * (n + 1));
+            outWeights = align(outTargets + 4L * m);
+            inOffsets = outWeights + 8L * m;
+            inSources = align(inOffsets + 4L * (n + 1));
+            inWeights = align(inSources + 4L * m);
+            end = inWeights + 8L * m;
+        }
+
+        static long size(int n, int m) {
+            return new SnapshotLayout(n, m).end;
+        }
+
+        private static long align(long offset) {
+            return (offset + 7) & ~7L;
+        }
+
+        IntBuffer ints(ByteBuffer buf, long offset, int count)
+        {
+            ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            b.position((int) offset).limit((int) (offset + 4L * count));
+            return b.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+
+        DoubleBuffer doubles(ByteBuffer buf, long offset, int count)
+        {
+            ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            b.position((int) offset).limit((int) (offset + 8L * count));
+            return b.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+    private static int indexOf(int[] ids, int[] indexTable, int id)
+    {
+        if (indexTable != null)
+        {
+            long i = (long) id - (ids.length == 0 ? 0 : ids[0]);
+            return (i < 0 || i >= indexTable.length) ? -1 : indexTable[(int) i];
+        }
+        int i = Arrays.binarySearch(ids, id);
+        return i < 0 ? -1 : i;
+    }
+
+    /**
+     * returns the number of nodes in the snapshot
+     * @return int
+     */
+    public int nodeSize() {
+        return ids.length;
+    }
+
+    /**
+     * returns the number of edges in the snapshot
+     * @return int
+     */
+    public int edgeSize() {
+        return outTargets.length;
+    }
+
+    /**
+     * returns the MC of the graph at the time the snapshot was taken
+     * @return int
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * returns the lowest edge weight of the snapshot
+     * @return double, 0 if there are no edges
+     */
+    public double minWeight() {
+        return minWeight;
+    }
+
+    /**
+     * returns the highest edge weight of the snapshot
+     * @return double, 0 if there are no edges
+     */
+    public double maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * returns the lowest ratio of edge weight to edge length (euclidean distance of its nodes) over all the edges.
+     * the straight line distance to a node times this ratio is never more than the real path distance, so it is
+     * an admissible and consistent A* heuristic. it is computed once for the snapshot.
+     * @return the ratio, 0 if no edge has a length (or a weight is negative)
+     */
+    public double heuristicScale()
+    {
+        double scale = heuristicScale;
+        if (Double.isNaN(scale))
+        {
+            scale = Double.MAX_VALUE;
+            for (int u = 0; u < ids.length && scale > 0; u++)
+                for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++)
+                {
+                    double length = distance(u, outTargets[e]);
+                    if (outWeights[e] < 0)
+                        scale = 0;
+                    else if (length > 0)
+                        scale = Math.min(scale, outWeights[e] / length);
+                }
+            if (scale == Double.MAX_VALUE)
+                scale = 0;
+            scale *= 1 - 1e-12; //a bit lower, so rounding of the lengths can not make the heuristic overestimate.
+            heuristicScale = scale;
+        }
+        return scale;
+    }
+
+    /**
+     * the euclidean distance between two nodes
+     * @param a dense index
+     * @param b dense index
+     * @return double
+     */
+    public double distance(int a, int b)
+    {
+        double dx = x[a] - x[b], dy = y[a] - y[b], dz = z[a] - z[b];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static double min(double[] weights)
+    {
+        if (weights.length == 0)
+            return 0.0;
+        double min = weights[0];
+        for (double w : weights)
+            min = Math.min(min, w);
+        return min;
+    }
+
+    private static double max(double[] weights)
+    {
+        if (weights.length == 0)
+            return 0.0;
+        double max = weights[0];
+        for (double w : weights)
+            max = Math.max(max, w);
+        return max;
+    }
+
+    /**
+     * get the dense index of a node id
+     * @param id the node id
+     * @return the index, -1 if the node is not in the snapshot
+     */
+    public int indexOf(int id) {
+        return indexOf(ids, indexTable, id);
+    }
+
+    /**
+     * get the node id of a dense index
+     * @param index the dense index
+     * @return the node id
+     */
+    public int id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * get the node of a dense index
+     * @param index the dense index
+     * @return Node
+     */
+    public Node node(int index)
+    {
+        Node node = nodes[index];
+        if (node == null) //the nodes are made when they are asked for, from the snapshot coordinates (not the live graph nodes).
+        {
+            node = new Node(ids[index], x[index], y[index], z[index]);
+            nodes[index] = node;
+        }
+        return node;
+    }
+
+    /**
+     * getters for the node coordinates by dense index
+     * @return double
+     */
+    public double x(int index) {
+        return x[index];
+    }
+
+    public double y(int index) {
+        return y[index];
+    }
+
+    public double z(int index) {
+        return z[index];
+    }
+
+    /**
+     * the first position of the edges coming out of a node
+     * @param index dense index of the node
+     * @return position in the edge arrays
+     */
+    public int outStart(int index) {
+        return outOffsets[index];
+    }
+
+    /**
+     * the position after the last edge coming out of a node
+     * @param index dense index of the node
+     * @return position in the edge arrays
+     */
+    public int outEnd(int index) {
+        return outOffsets[index + 1];
+    }
+
+    /**
+     * get the dense index of the dest of an out edge
+     * @param pos position in the out edge arrays
+     * @return the dest index
+     */
+    public int target(int pos) {
+        return outTargets[pos];
+    }
+
+    /**
+     * get the weight of an out edge
+     * @param pos position in the out edge arrays
+     * @return the weight
+     */
+    public double weight(int pos) {
+        return outWeights[pos];
+    }
+
+    /**
+     * the first position of the edges coming into a node
+     * @param index dense index of the node
+     * @return position in the in edge arrays
+     */
+    public int inStart(int index) {
+        return inOffsets[index];
+    }
+
+    /**
+     * the position after the last edge coming into a node
+     * @param index dense index of the node
+     * @return position in the in edge arrays
+     */
+    public int inEnd(int index) {
+        return inOffsets[index + 1];
+    }
+
+    /**
+     * get the dense index of the src of an in edge
+     * @param pos position in the in edge arrays
+     * @return the src index
+     */
+    public int source(int pos) {
+        return inSources[pos];
+    }
+
+    /**
+     * get the weight of an in edge
+     * @param pos position in the in edge arrays
+     * @return the weight
+     */
+    public double inWeight(int pos) {
+        return inWeights[pos];
+    }
+}
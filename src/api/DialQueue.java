@@ -0,0 +1,124 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class is Dial's bucket queue for real weights: bucket b holds the keys in [b*width, (b+1)*width), and the width
+ * is a bit less than the lowest edge weight of the graph. a node relaxed from a node of the lowest bucket always
+ * goes to a higher bucket, so every node of the lowest bucket already has its final distance and they can be popped
+ * in any order. the keys in the queue never span more than the highest edge weight, so the buckets are kept in a
+ * circular array. when the weights are not positive (or too spread) a binary heap is used instead.
+ * decrease-key is lazy (a new entry is added, look up NodeQueue).
+ */
+final class DialQueue implements NodeQueue
+{
+    private static final int MAX_BUCKETS = 1 << 20;
+
+    private double width;
+    private int[][] nodes = new int[0][];
+    private double[][] keys = new double[0][];
+    private int[] sizes = new int[0];
+    private int count; //amount of buckets in use
+    private long current; //the lowest bucket that may be not empty
+    private int size;
+    private final IndexedHeap heap = new IndexedHeap();
+    private boolean useHeap;
+
+    @Override
+    public void reset(CsrGraph g)
+    {
+        double min = g.minWeight();
+        double max = g.maxWeight();
+        useHeap = g.edgeSize() == 0 || !(min > 0) || max / min >= MAX_BUCKETS - 2;
+        if (useHeap)
+        {
+            heap.reset(g);
+            return;
+        }
+        width = min * (1 - 1e-9); //a bit less than the lowest weight, so rounding can not put a relaxed node in the same bucket.
+        int buckets = (int) (max / width) + 3; //the keys span at most max / width + 2 buckets, one more for rounding
+        if (buckets > nodes.length)
+        {
+            int old = nodes.length;
+            nodes = Arrays.copyOf(nodes, buckets);
+            keys = Arrays.copyOf(keys, buckets);
+            sizes = Arrays.copyOf(sizes, buckets);
+            for (int i = old; i < buckets; i++)
+            {
+                nodes[i] = new int[4];
+                keys[i] = new double[4];
+            }
+        }
+        count = buckets;
+        Arrays.fill(sizes, 0, count, 0);
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return useHeap ? heap.isEmpty() : size == 0;
+    }
+
+    @Override
+    public void insert(int v, double key)
+    {
+        if (useHeap)
+        {
+            heap.insert(v, key);
+            return;
+        }
+        long b = (long) (key / width);
+        if (size == 0 || b < current) //the keys are never lower than the last popped one, but can be lower than the first key pushed after it.
+            current = b;
+        int i = (int) (b % count);
+        int s = sizes[i];
+        if (s == nodes[i].length)
+        {
+            nodes[i] = Arrays.copyOf(nodes[i], s * 2);
+            keys[i] = Arrays.copyOf(keys[i], s * 2);
+        }
+        nodes[i][s] = v;
+        keys[i][s] = key;
+        sizes[i] = s + 1;
+        size++;
+    }
+
+    @Override
+    public void decreaseKey(int v, double key)
+    {
+        if (useHeap)
+            heap.decreaseKey(v, key);
+        else
+            insert(v, key);
+    }
+
+    private int lowest()
+    {//the index of the lowest bucket that is not empty.
+        int i = (int) (current % count);
+        while (sizes[i] == 0)
+        {
+            current++;
+            i = (int) (current % count);
+        }
+        return i;
+    }
+
+    @Override
+    public double minKey()
+    {
+        if (useHeap)
+            return heap.minKey();
+        int i = lowest();
+        return keys[i][sizes[i] - 1];
+    }
+
+    @Override
+    public int pollMin()
+    {
+        if (useHeap)
+            return heap.pollMin();
+        int i = lowest();
+        size--;
+        return nodes[i][--sizes[i]];
+    }
+}
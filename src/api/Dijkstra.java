@@ -0,0 +1,301 @@
+package api;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * This class runs Dijkstra's algorithm on a CsrGraph with a reusable workspace: the distances, predecessors
+ * and queue are primitive arrays by dense node index, and every array cell is stamped with the number
+ * of the search that wrote it. a new search only increases the stamp, so it does not pay o(V) to clear the arrays,
+ * and after the arrays grew to the graph size a search does not allocate at all.
+ * the priority queue is pluggable (look up QueueType). a queue may be lazy, so a polled entry whose key is higher
+ * than the node distance, or of a node that is already settled, is skipped.
+ * a workspace is not thread safe, Algo keeps one for every thread.
+ */
+final class Dijkstra
+{
+    static final double INFINITY = Double.MAX_VALUE; //the distance of a node that was not reached
+
+    private double[] dist = new double[0];
+    private int[] pred = new int[0];
+    private int[] stamp = new int[0]; //the search that reached the node, the other arrays are valid only if it is the current one
+    private int[] done = new int[0]; //the search that settled the node
+    private double[] potential = new double[0]; //A* heuristic of a reached node
+    private int[] goal = new int[0]; //the search the node is a target of (searchMany)
+    private int epoch;
+    private QueueType queueType;
+    private NodeQueue queue;
+    private IndexedHeap heap; //A* queue when the chosen queue needs the Dijkstra keys (radix and Dial)
+    private int settled; //amount of nodes settled by the last search
+    private double maxSettled; //the largest distance settled (Dial does not settle in exact distance order)
+    private CsrGraph graph;
+    private int source;
+
+    Dijkstra() {
+        this(QueueType.BINARY_HEAP);
+    }
+
+    Dijkstra(QueueType queueType) {
+        setQueueType(queueType);
+    }
+
+    QueueType getQueueType() {
+        return queueType;
+    }
+
+    /**
+     * change the priority queue of the next searches
+     */
+    void setQueueType(QueueType queueType)
+    {
+        if (queueType != this.queueType)
+        {
+            this.queueType = queueType;
+            queue = queueType.create();
+        }
+    }
+
+    /**
+     * start a new search on a graph: make room for its nodes and invalidate the previous search in o(1)
+     */
+    private void reset(CsrGraph g)
+    {
+        int n = g.nodeSize();
+        if (stamp.length < n)
+        {
+            int size = Math.max(n, stamp.length * 2);
+            dist = Arrays.copyOf(dist, size);
+            pred = Arrays.copyOf(pred, size);
+            stamp = Arrays.copyOf(stamp, size);
+            done = Arrays.copyOf(done, size);
+            potential = Arrays.copyOf(potential, size);
+            goal = Arrays.copyOf(goal, size);
+        }
+        queue.reset(g);
+        if (++epoch == Integer.MAX_VALUE) //after 2^31 searches the old stamps could match again.
+        {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(done, 0);
+            Arrays.fill(goal, 0);
+            epoch = 1;
+        }
+        graph = g;
+        settled = 0;
+        maxSettled = 0.0;
+    }
+
+    /**
+     * search from a source until the target is settled
+     * @param g the graph
+     * @param src dense index of the source
+     * @param target dense index of the target, -1 to settle every reachable node
+     * @return the distance to the target (INFINITY if not reachable), or 0 if target is -1
+     */
+    double search(CsrGraph g, int src, int target) {
+        return run(g, src, target, null, g.outOffsets, g.outTargets, g.outWeights);
+    }
+
+    /**
+     * one to many search: one search from a source that stops when all the targets are settled
+     * (or every reachable node is), then distance(t) is exact for every target.
+     * @param g the graph
+     * @param src dense index of the source
+     * @param targets dense indices of the targets (duplicates are fine)
+     */
+    void searchMany(CsrGraph g, int src, int[] targets) {
+        run(g, src, -1, targets, g.outOffsets, g.outTargets, g.outWeights);
+    }
+
+    /**
+     * A* search from a source to a target: the key of a node is its distance plus the straight line distance to
+     * the target times CsrGraph.heuristicScale(), which never overestimates, so the target distance is exact but
+     * only the nodes in the direction of the target are settled. the radix and Dial queues depend on Dijkstra keys,
+     * with them a binary heap is used.
+     * @param g the graph
+     * @param src dense index of the source
+     * @param target dense index of the target
+     * @return the distance to the target, INFINITY if not reachable
+     */
+    double searchAStar(CsrGraph g, int src, int target)
+    {
+        double scale = g.heuristicScale();
+        return searchAStar(g, src, target, v -> scale * g.distance(v, target));
+    }
+
+    /**
+     * A* search with a given heuristic
+     * @param g the graph
+     * @param src dense index of the source
+     * @param target dense index of the target
+     * @param heuristic a lower bound of the distance from a node to the target, that is consistent
+     *                  (h(u) <= w(u,v) + h(v) for every edge), like the straight line or the landmarks bounds
+     * @return the distance to the target, INFINITY if not reachable
+     */
+    double searchAStar(CsrGraph g, int src, int target, IntToDoubleFunction heuristic)
+    {
+        reset(g);
+        NodeQueue open = queue;
+        if (queueType == QueueType.RADIX_HEAP || queueType == QueueType.DIAL)
+        {
+            if (heap == null)
+                heap = new IndexedHeap();
+            heap.reset(g);
+            open = heap;
+        }
+        source = src;
+        stamp[src] = epoch;
+        dist[src] = 0.0;
+        pred[src] = -1;
+        potential[src] = heuristic.applyAsDouble(src);
+        open.insert(src, potential[src]);
+        int[] offsets = g.outOffsets;
+        int[] targets = g.outTargets;
+        double[] weights = g.outWeights;
+        while (!open.isEmpty())
+        {
+            int u = open.pollMin();
+            if (done[u] == epoch)
+                continue;
+            done[u] = epoch;
+            settled++;
+            double du = dist[u];
+            maxSettled = Math.max(maxSettled, du);
+            if (u == target)
+                return du;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++)
+            {
+                int v = targets[e];
+                double d = du + weights[e];
+                if (stamp[v] != epoch)
+                {
+                    stamp[v] = epoch;
+                    dist[v] = d;
+                    pred[v] = u;
+                    potential[v] = heuristic.applyAsDouble(v); //computed once for every reached node.
+                    open.insert(v, d + potential[v]);
+                }
+                else if (d < dist[v] && done[v] != epoch)
+                {
+                    dist[v] = d;
+                    pred[v] = u;
+                    open.decreaseKey(v, d + potential[v]);
+                }
+            }
+        }
+        return INFINITY;
+    }
+
+    /**
+     * search backward (over the in edges) from a node: settles every node that reaches it,
+     * distance(v) is then the distance from v to the node and predecessor(v) is the next node on that path
+     * @param g the graph
+     * @param dest dense index of the node the paths go to
+     */
+    void searchBackward(CsrGraph g, int dest) {
+        run(g, dest, -1, null, g.inOffsets, g.inSources, g.inWeights);
+    }
+
+    private double run(CsrGraph g, int src, int target, int[] goals, int[] offsets, int[] targets, double[] weights)
+    {
+        reset(g);
+        int remaining = 0; //goals that are not settled yet
+        if (goals != null)
+        {
+            for (int t : goals)
+                if (goal[t] != epoch)
+                {
+                    goal[t] = epoch;
+                    remaining++;
+                }
+            if (remaining == 0)
+                return 0.0;
+        }
+        source = src;
+        stamp[src] = epoch;
+        dist[src] = 0.0;
+        pred[src] = -1;
+        queue.insert(src, 0.0);
+        while (!queue.isEmpty())
+        {
+            double key = queue.minKey();
+            int u = queue.pollMin();
+            if (done[u] == epoch || key > dist[u]) //an old entry of a lazy queue.
+                continue;
+            done[u] = epoch;
+            settled++;
+            double du = dist[u];
+            maxSettled = Math.max(maxSettled, du);
+            if (u == target || (goal[u] == epoch && --remaining == 0))
+                return du;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++)
+            {
+                int v = targets[e];
+                double d = du + weights[e];
+                if (stamp[v] != epoch) //first time the node is reached in this search.
+                {
+                    stamp[v] = epoch;
+                    dist[v] = d;
+                    pred[v] = u;
+                    queue.insert(v, d);
+                }
+                else if (d < dist[v] && done[v] != epoch)
+                {
+                    dist[v] = d;
+                    pred[v] = u;
+                    queue.decreaseKey(v, d);
+                }
+            }
+        }
+        return target < 0 ? 0.0 : INFINITY;
+    }
+
+    /**
+     * the distance of a node in the last search
+     * @param v dense index
+     * @return the distance, INFINITY if the node was not reached
+     */
+    double distance(int v) {
+        return stamp[v] == epoch ? dist[v] : INFINITY;
+    }
+
+    /**
+     * the node before a node on its shortest path in the last search
+     * @param v dense index
+     * @return the previous dense index, -1 for the source or a node that was not reached
+     */
+    int predecessor(int v) {
+        return stamp[v] == epoch ? pred[v] : -1;
+    }
+
+    /**
+     * amount of nodes settled by the last search
+     */
+    int settledCount() {
+        return settled;
+    }
+
+    /**
+     * the largest distance settled by the last search
+     */
+    double maxSettled() {
+        return maxSettled;
+    }
+
+    /**
+     * build the path of the last search from its source to a node, as dense indices
+     * @param target dense index of a reached node
+     * @return the path, null if the node was not reached
+     */
+    int[] path(int target)
+    {
+        if (graph == null || stamp[target] != epoch)
+            return null;
+        int length = 1;
+        for (int v = target; v != source; v = pred[v])
+            length++;
+        int[] path = new int[length];
+        for (int v = target, i = length - 1; i >= 0; v = pred[v], i--)
+            path[i] = v;
+        return path;
+    }
+}
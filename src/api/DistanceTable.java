@@ -0,0 +1,180 @@
+package api;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * This class is an all pairs shortest path table of a graph snapshot: the distance and the next hop of every
+ * (src, dest) pair by dense index, in flat row major arrays (n*n doubles and ints). the rows are computed by
+ * one full Dijkstra search per source, in parallel on the common fork join pool.
+ * after it is built a distance is one array read and a path is read hop by hop, without any search.
+ */
+final class DistanceTable
+{
+    private final CsrGraph graph;
+    private final int n;
+    private final double[] dist; //src * n + dest -> distance, Dijkstra.INFINITY if not reachable
+    private final int[] next; //src * n + dest -> the node after src on the path, -1 for src itself or if not reachable
+
+    private DistanceTable(CsrGraph graph)
+    {
+        this.graph = graph;
+        this.n = graph.nodeSize();
+        this.dist = new double[n * n];
+        this.next = new int[n * n];
+    }
+
+    /**
+     * the memory the table of a graph takes
+     * @param nodes amount of nodes
+     * @return bytes
+     */
+    static long bytesFor(int nodes) {
+        return (long) nodes * nodes * (Double.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * compute the table of a graph
+     * @param graph the graph snapshot
+     * @param workspace gives the search workspace of the calling thread
+     * @return the table
+     */
+    static DistanceTable build(CsrGraph graph, Supplier<Dijkstra> workspace)
+    {
+        if ((long) graph.nodeSize() * graph.nodeSize() > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("too many nodes for a distance table: " + graph.nodeSize());
+        DistanceTable table = new DistanceTable(graph);
+        IntStream.range(0, table.n).parallel().forEach(src -> table.fillRow(workspace.get(), src));
+        return table;
+    }
+
+    private void fillRow(Dijkstra dijkstra, int src)
+    {
+        dijkstra.search(graph, src, -1);
+        int row = src * n;
+        Arrays.fill(next, row, row + n, -2); //-2: the hop is not known yet
+        next[row + src] = -1;
+        for (int v = 0; v < n; v++)
+        {
+            double d = dijkstra.distance(v);
+            dist[row + v] = d;
+            if (d == Dijkstra.INFINITY)
+                next[row + v] = -1;
+        }
+        for (int v = 0; v < n; v++)
+        {// the hop of a node is the hop of its predecessor (or the node itself after the src). walk up until
+            // a known hop, then write it on the way down (the hops are kept in the row while walking).
+            if (next[row + v] != -2)
+                continue;
+            int u = v;
+            int hop;
+            while (true)
+            {
+                int p = dijkstra.predecessor(u);
+                if (p == src)
+                {
+                    hop = u;
+                    break;
+                }
+                if (next[row + p] != -2)
+                {
+                    hop = next[row + p];
+                    break;
+                }
+                next[row + u] = -3 - p; //remember the way down: -3 - predecessor
+                u = p;
+            }
+            next[row + u] = hop;
+            for (int w = v; w != u; )
+            {
+                int p = -3 - next[row + w];
+                next[row + w] = hop;
+                w = p;
+            }
+        }
+    }
+
+    /**
+     * get the snapshot the table was built for
+     * @return CsrGraph
+     */
+    CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * the shortest path distance between two nodes
+     * @param src dense index
+     * @param dest dense index
+     * @return the distance, Dijkstra.INFINITY if dest is not reachable
+     */
+    double distance(int src, int dest) {
+        return dist[src * n + dest];
+    }
+
+    /**
+     * the node after src on the shortest path to dest
+     * @param src dense index
+     * @param dest dense index
+     * @return dense index, -1 if src == dest or dest is not reachable
+     */
+    int nextHop(int src, int dest) {
+        return next[src * n + dest];
+    }
+
+    /**
+     * the shortest path between two nodes as dense indices, from src to dest. every hop is read from the row of
+     * the node we are at, which is a shortest path too. with ties on zero weight cycles two rows can point at
+     * each other, then the path is found in the row of src alone (look up tightPath).
+     * @return the path, null if dest is not reachable
+     */
+    int[] path(int src, int dest)
+    {
+        if (dist[src * n + dest] == Dijkstra.INFINITY)
+            return null;
+        int length = 1;
+        for (int v = src; v != dest; v = next[v * n + dest])
+            if (++length > n)
+                return tightPath(src, dest);
+        int[] path = new int[length];
+        int i = 0;
+        for (int v = src; v != dest; v = next[v * n + dest])
+            path[i++] = v;
+        path[i] = dest;
+        return path;
+    }
+
+    private int[] tightPath(int src, int dest)
+    {// a breadth first search from src over the tight edges (dist(src,u) + w == dist(src,v)). every edge of the
+        // search tree of the row is tight (the distances are the same sums), so dest is found, and the weights of
+        // the path add up to its distance.
+        int row = src * n;
+        int[] pred = new int[n];
+        Arrays.fill(pred, -2);
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = src;
+        pred[src] = -1;
+        while (head < tail && pred[dest] == -2)
+        {
+            int u = queue[head++];
+            for (int e = graph.outStart(u); e < graph.outEnd(u); e++)
+            {
+                int v = graph.target(e);
+                if (pred[v] == -2 && dist[row + u] + graph.weight(e) == dist[row + v])
+                {
+                    pred[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        int length = 1;
+        for (int v = dest; v != src; v = pred[v])
+            length++;
+        int[] path = new int[length];
+        for (int v = dest, i = length - 1; i >= 0; v = pred[v], i--)
+            path[i] = v;
+        return path;
+    }
+}
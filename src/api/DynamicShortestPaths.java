@@ -0,0 +1,451 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * This class keeps the shortest path trees of a few sources up to date while the graph changes, in the style of
+ * Ramalingam and Reps: it listens to the graph (look up GraphListener) and repairs only the part of every tree
+ * a change affects, instead of searching again from scratch.
+ * a new or cheaper edge (u,v) is relaxed and the lower distances spread from v with a Dijkstra search that stops
+ * where they are not lower anymore. a removed or heavier tree edge (u,v) makes the subtree of v affected:
+ * every affected node takes its best edge from a node outside the subtree, and a Dijkstra search over the subtree
+ * alone fixes the rest. an edge that is not in a tree costs nothing more than a comparison.
+ * it keeps its own adjacency (out and in edges) by a local node index, so it does not depend on the state of
+ * the graph while a change is reported. the queries and the repairs are synchronized.
+ */
+public class DynamicShortestPaths implements GraphListener
+{
+    private static final double INFINITY = Dijkstra.INFINITY;
+
+    private final Graph graph;
+    private final IntHashMap<Integer> index = new IntHashMap<>(); //node id -> local index
+    private int[] ids = new int[16]; //local index -> node id
+    private int[] freeIndices = new int[16]; //local indices of removed nodes, used again by new nodes
+    private int freeCount;
+    private int size; //amount of local indices in use or free
+    private int[][] outTo = new int[16][]; //local index -> local indices of the edges dests
+    private double[][] outWeight = new double[16][];
+    private int[] outCount = new int[16];
+    private int[][] inFrom = new int[16][]; //local index -> local indices of the edges srcs
+    private double[][] inWeight = new double[16][];
+    private int[] inCount = new int[16];
+    private final ArrayList<Tree> trees = new ArrayList<>();
+    private final IndexedHeap heap = new IndexedHeap();
+    private int[] mark = new int[16]; //the repair that put the node in the affected subtree
+    private int epoch;
+    private long affected; //amount of node distances recomputed by the repairs
+
+    private static final class Tree
+    {
+        final int sourceId;
+        final int source; //local index
+        double[] dist;
+        int[] pred; //local index, -1 for the source or a node that is not reachable
+
+        Tree(int sourceId, int source, int capacity)
+        {
+            this.sourceId = sourceId;
+            this.source = source;
+            dist = new double[capacity];
+            pred = new int[capacity];
+            Arrays.fill(dist, INFINITY);
+            Arrays.fill(pred, -1);
+        }
+    }
+
+    /**
+     * copy the adjacency of a graph and listen to its changes
+     * @param graph the graph
+     */
+    public DynamicShortestPaths(Graph graph)
+    {
+        this.graph = graph;
+        synchronized (graph) //no change between the copy and the registration.
+        {
+            Iterator<Node> nodes = graph.nodeIter();
+            while (nodes.hasNext())
+                add(nodes.next().getKey());
+            Iterator<Edge> edges = graph.edgeIter();
+            while (edges.hasNext())
+                link(edges.next());
+            graph.addListener(this);
+        }
+    }
+
+    /**
+     * stop listening to the graph, the trees are not updated anymore
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    /**
+     * keep the shortest path tree of a node, with one full search
+     * @param src the node id
+     * @return false if the node is not in the graph
+     */
+    public synchronized boolean addSource(int src)
+    {
+        Integer s = index.get(src);
+        if (s == null)
+            return false;
+        if (tree(src) != null)
+            return true;
+        Tree tree = new Tree(src, s, ids.length);
+        trees.add(tree);
+        tree.dist[s] = 0.0;
+        heap.ensureCapacity(ids.length);
+        heap.clear();
+        heap.insert(s, 0.0);
+        spread(tree, false);
+        return true;
+    }
+
+    /**
+     * stop keeping the tree of a node
+     * @param src the node id
+     */
+    public synchronized void removeSource(int src) {
+        trees.remove(tree(src));
+    }
+
+    /**
+     * true if the tree of the node is kept
+     */
+    public synchronized boolean hasSource(int src) {
+        return tree(src) != null;
+    }
+
+    /**
+     * the current distance between two nodes
+     * @param src a source node id (look up addSource)
+     * @param dest the node id
+     * @return the weight of the best path, Double.MAX_VALUE if there is no path or dest is not in the graph
+     */
+    public synchronized double distance(int src, int dest)
+    {
+        Tree tree = sourceTree(src);
+        Integer t = index.get(dest);
+        return t == null ? INFINITY : tree.dist[t];
+    }
+
+    /**
+     * the current shortest path between two nodes
+     * @param src a source node id (look up addSource)
+     * @param dest the node id
+     * @return the node ids of the path from src to dest, null if there is no path
+     */
+    public synchronized int[] path(int src, int dest)
+    {
+        Tree tree = sourceTree(src);
+        Integer t = index.get(dest);
+        if (t == null || tree.dist[t] == INFINITY)
+            return null;
+        int length = 1;
+        for (int v = t; v != tree.source; v = tree.pred[v])
+            length++;
+        int[] path = new int[length];
+        for (int v = t, i = length - 1; i >= 0; v = tree.pred[v], i--)
+            path[i] = ids[v];
+        return path;
+    }
+
+    /**
+     * the first step of the current shortest path between two nodes, without building the path
+     * @param src a source node id (look up addSource)
+     * @param dest the node id
+     * @return the id of the node after src, -1 if src == dest or there is no path
+     */
+    public synchronized int nextHop(int src, int dest)
+    {
+        Tree tree = sourceTree(src);
+        Integer t = index.get(dest);
+        if (t == null || tree.dist[t] == INFINITY || t == tree.source)
+            return -1;
+        int v = t;
+        while (tree.pred[v] != tree.source)
+            v = tree.pred[v];
+        return ids[v];
+    }
+
+    /**
+     * amount of node distances the repairs recomputed since the object was created (the cost of the updates)
+     */
+    public synchronized long getAffectedCount() {
+        return affected;
+    }
+
+    private Tree tree(int src)
+    {
+        for (Tree tree : trees)
+            if (tree.sourceId == src)
+                return tree;
+        return null;
+    }
+
+    private Tree sourceTree(int src)
+    {
+        Tree tree = tree(src);
+        if (tree == null)
+            throw new IllegalArgumentException("the tree of node " + src + " is not kept (look up addSource)");
+        return tree;
+    }
+
+    @Override
+    public synchronized void nodeAdded(Node node)
+    {// the graph does not check the dest of connect, so edges to the node may be there already: link them now.
+        int id = node.getKey();
+        add(id);
+        Iterator<Edge> in = graph.inEdgeIter(id);
+        while (in.hasNext())
+        {
+            Edge edge = in.next();
+            if (edge.getSrc() != id) //a self loop is an out edge too
+                edgeAdded(edge);
+        }
+        Iterator<Edge> out = graph.edgeIter(id);
+        while (out.hasNext())
+            edgeAdded(out.next());
+    }
+
+    private void add(int id)
+    {
+        int v;
+        if (freeCount > 0)
+            v = freeIndices[--freeCount];
+        else
+        {
+            if (size == ids.length)
+                grow(size * 2);
+            v = size++;
+        }
+        ids[v] = id;
+        index.put(id, v);
+        outCount[v] = 0;
+        inCount[v] = 0;
+        for (Tree tree : trees)
+        {
+            tree.dist[v] = INFINITY;
+            tree.pred[v] = -1;
+        }
+    }
+
+    @Override
+    public synchronized void nodeRemoved(Node node)
+    {// its edges were removed before, so no tree goes through it.
+        Integer v = index.remove(node.getKey());
+        if (v == null)
+            return;
+        trees.remove(tree(node.getKey()));
+        if (freeCount == freeIndices.length)
+            freeIndices = Arrays.copyOf(freeIndices, freeCount * 2);
+        freeIndices[freeCount++] = v;
+    }
+
+    @Override
+    public synchronized void edgeAdded(Edge edge)
+    {
+        if (!link(edge))
+            return;
+        int u = index.get(edge.getSrc()), v = index.get(edge.getDest());
+        for (Tree tree : trees)
+            decreased(tree, u, v, edge.getWeight());
+    }
+
+    @Override
+    public synchronized void edgeWeightChanged(Edge oldEdge, Edge newEdge)
+    {
+        unlink(oldEdge);
+        if (!link(newEdge))
+            return;
+        int u = index.get(newEdge.getSrc()), v = index.get(newEdge.getDest());
+        for (Tree tree : trees)
+        {
+            if (newEdge.getWeight() < oldEdge.getWeight())
+                decreased(tree, u, v, newEdge.getWeight());
+            else if (tree.pred[v] == u && u != v)
+                increased(tree, v);
+        }
+    }
+
+    @Override
+    public synchronized void edgeRemoved(Edge edge)
+    {
+        if (!unlink(edge))
+            return;
+        int u = index.get(edge.getSrc()), v = index.get(edge.getDest());
+        for (Tree tree : trees)
+            if (tree.pred[v] == u && u != v)
+                increased(tree, v);
+    }
+
+    private void decreased(Tree tree, int u, int v, double w)
+    {//the edge (u,v) is new or cheaper: spread the lower distances from v.
+        double d = tree.dist[u] == INFINITY ? INFINITY : tree.dist[u] + w;
+        if (d >= tree.dist[v])
+            return;
+        tree.dist[v] = d;
+        tree.pred[v] = u;
+        affected++;
+        heap.ensureCapacity(ids.length);
+        heap.clear();
+        heap.insert(v, d);
+        spread(tree, false);
+    }
+
+    private void increased(Tree tree, int root)
+    {// the tree edge into root is gone or heavier. every node of the subtree of root may get a higher distance:
+        // first each of them takes its best edge from outside the subtree, then a search inside the subtree.
+        if (++epoch == Integer.MAX_VALUE)
+        {
+            Arrays.fill(mark, 0);
+            epoch = 1;
+        }
+        int[] subtree = new int[16];
+        int count = 0;
+        subtree[count++] = root;
+        mark[root] = epoch;
+        for (int i = 0; i < count; i++)
+        {//the children of a node are the out edges dests whose predecessor it is.
+            int x = subtree[i];
+            for (int e = 0; e < outCount[x]; e++)
+            {
+                int y = outTo[x][e];
+                if (mark[y] != epoch && tree.pred[y] == x)
+                {
+                    mark[y] = epoch;
+                    if (count == subtree.length)
+                        subtree = Arrays.copyOf(subtree, count * 2);
+                    subtree[count++] = y;
+                }
+            }
+        }
+        heap.ensureCapacity(ids.length);
+        heap.clear();
+        for (int i = 0; i < count; i++)
+        {
+            int x = subtree[i];
+            double best = INFINITY;
+            int bestPred = -1;
+            for (int e = 0; e < inCount[x]; e++)
+            {
+                int p = inFrom[x][e];
+                if (mark[p] == epoch || tree.dist[p] == INFINITY)
+                    continue;
+                double d = tree.dist[p] + inWeight[x][e];
+                if (d < best)
+                {
+                    best = d;
+                    bestPred = p;
+                }
+            }
+            tree.dist[x] = best;
+            tree.pred[x] = bestPred;
+            if (best != INFINITY)
+                heap.insert(x, best);
+        }
+        affected += count;
+        spread(tree, true);
+    }
+
+    private void spread(Tree tree, boolean subtreeOnly)
+    {//Dijkstra from the nodes in the heap, a node is pushed again only when its distance gets lower.
+        while (!heap.isEmpty())
+        {
+            int x = heap.pollMin();
+            double dx = tree.dist[x];
+            for (int e = 0; e < outCount[x]; e++)
+            {
+                int y = outTo[x][e];
+                if (subtreeOnly && mark[y] != epoch)
+                    continue;
+                double d = dx + outWeight[x][e];
+                if (d < tree.dist[y])
+                {
+                    tree.dist[y] = d;
+                    tree.pred[y] = x;
+                    if (!subtreeOnly)
+                        affected++;
+                    if (heap.contains(y))
+                        heap.decreaseKey(y, d);
+                    else
+                        heap.insert(y, d);
+                }
+            }
+        }
+    }
+
+    private boolean link(Edge edge)
+    {//false if an end of the edge is not a node (the graph does not check the dest).
+        Integer src = index.get(edge.getSrc()), dest = index.get(edge.getDest());
+        if (src == null || dest == null)
+            return false;
+        int u = src, v = dest;
+        if (outCount[u] == length(outTo[u]))
+        {
+            outTo[u] = Arrays.copyOf(outTo[u] == null ? new int[0] : outTo[u], Math.max(4, outCount[u] * 2));
+            outWeight[u] = Arrays.copyOf(outWeight[u] == null ? new double[0] : outWeight[u], outTo[u].length);
+        }
+        outTo[u][outCount[u]] = v;
+        outWeight[u][outCount[u]++] = edge.getWeight();
+        if (inCount[v] == length(inFrom[v]))
+        {
+            inFrom[v] = Arrays.copyOf(inFrom[v] == null ? new int[0] : inFrom[v], Math.max(4, inCount[v] * 2));
+            inWeight[v] = Arrays.copyOf(inWeight[v] == null ? new double[0] : inWeight[v], inFrom[v].length);
+        }
+        inFrom[v][inCount[v]] = u;
+        inWeight[v][inCount[v]++] = edge.getWeight();
+        return true;
+    }
+
+    private boolean unlink(Edge edge)
+    {//swap the last edge into the place of the removed one.
+        Integer src = index.get(edge.getSrc()), dest = index.get(edge.getDest());
+        if (src == null || dest == null)
+            return false;
+        int u = src, v = dest;
+        for (int e = 0; e < outCount[u]; e++)
+            if (outTo[u][e] == v)
+            {
+                int last = --outCount[u];
+                outTo[u][e] = outTo[u][last];
+                outWeight[u][e] = outWeight[u][last];
+                break;
+            }
+        for (int e = 0; e < inCount[v]; e++)
+            if (inFrom[v][e] == u)
+            {
+                int last = --inCount[v];
+                inFrom[v][e] = inFrom[v][last];
+                inWeight[v][e] = inWeight[v][last];
+                break;
+            }
+        return true;
+    }
+
+    private static int length(int[] a) {
+        return a == null ? 0 : a.length;
+    }
+
+    private void grow(int capacity)
+    {
+        ids = Arrays.copyOf(ids, capacity);
+        outTo = Arrays.copyOf(outTo, capacity);
+        outWeight = Arrays.copyOf(outWeight, capacity);
+        outCount = Arrays.copyOf(outCount, capacity);
+        inFrom = Arrays.copyOf(inFrom, capacity);
+        inWeight = Arrays.copyOf(inWeight, capacity);
+        inCount = Arrays.copyOf(inCount, capacity);
+        mark = Arrays.copyOf(mark, capacity);
+        for (Tree tree : trees)
+        {
+            int old = tree.dist.length;
+            tree.dist = Arrays.copyOf(tree.dist, capacity);
+            tree.pred = Arrays.copyOf(tree.pred, capacity);
+            Arrays.fill(tree.dist, old, capacity, INFINITY);
+            Arrays.fill(tree.pred, old, capacity, -1);
+        }
+    }
+}
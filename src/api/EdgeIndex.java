@@ -0,0 +1,174 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class is a uniform grid over the edges of a graph snapshot, used to find the edge a point (pokemon) is on.
+ * every edge is put in the cells its bounding box touches, in a separate grid for each direction
+ * (src id < dest id, src id > dest id and self loops), so a query only tests the few edges of one cell.
+ * the edge lengths are computed once when the index is built, and so are the Edge objects find() returns:
+ * the graph's own edges when the index is built from a Graph, otherwise one Edge per snapshot edge.
+ */
+public final class EdgeIndex
+{
+    static final double EPS = 0.000001; //a point is on an edge if it adds less than this to the edge length.
+    private static final int UP = 0, DOWN = 1, LOOP = 2;
+
+    private final CsrGraph graph;
+    private final int[] source; //edge position -> src index
+    private final Edge[] edges; //edge position -> the Edge find() returns
+    private final double[] length; //edge position -> length of the edge (x, y)
+    private final double minX, minY;
+    private final double cellWidth, cellHeight;
+    private final int columns, rows;
+    private final int[][] cellOffsets = new int[3][]; //per direction: cell -> first position in cellEdges
+    private final int[][] cellEdges = new int[3][]; //per direction: edge positions of every cell, ascending
+
+    public EdgeIndex(CsrGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * build the index for the current snapshot of a graph, find() returns the graph's own edges
+     * (the same objects as graph.getEdge(src, dest)).
+     * @param graph the graph
+     */
+    public EdgeIndex(Graph graph) {
+        this(graph.snapshot(), graph);
+    }
+
+    private EdgeIndex(CsrGraph graph, Graph live)
+    {
+        this.graph = graph;
+        int n = graph.nodeSize();
+        int m = graph.edgeSize();
+        source = new int[m];
+        edges = new Edge[m];
+        length = new double[m];
+        double[] margin = new double[m];
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        for (int src = 0; src < n; src++)
+            for (int e = graph.outStart(src); e < graph.outEnd(src); e++)
+            {
+                int dest = graph.target(e);
+                source[e] = src;
+                edges[e] = live == null ? null : live.getEdge(graph.ids[src], graph.ids[dest]);
+                if (edges[e] == null) //a plain snapshot (or the edge is already gone from the graph)
+                    edges[e] = new Edge(graph.ids[src], graph.ids[dest], graph.weight(e));
+                length[e] = Math.sqrt(Math.pow(graph.x[src] - graph.x[dest], 2) + Math.pow(graph.y[src] - graph.y[dest], 2));
+                // the points that add less than EPS to the length are inside an ellipse around the edge,
+                // its half width is the margin we add around the bounding box.
+                margin[e] = Math.sqrt(EPS * length[e] / 2 + EPS * EPS / 4) + EPS;
+                x0 = Math.min(x0, Math.min(graph.x[src], graph.x[dest]) - margin[e]);
+                y0 = Math.min(y0, Math.min(graph.y[src], graph.y[dest]) - margin[e]);
+                x1 = Math.max(x1, Math.max(graph.x[src], graph.x[dest]) + margin[e]);
+                y1 = Math.max(y1, Math.max(graph.y[src], graph.y[dest]) + margin[e]);
+            }
+        if (m == 0)
+        {
+            x0 = y0 = 0;
+            x1 = y1 = 1;
+        }
+        int side = Math.max(1, Math.min(1024, (int) Math.ceil(Math.sqrt(m)))); //about one edge per cell
+        minX = x0;
+        minY = y0;
+        columns = side;
+        rows = side;
+        cellWidth = Math.max((x1 - x0) / columns, Double.MIN_NORMAL);
+        cellHeight = Math.max((y1 - y0) / rows, Double.MIN_NORMAL);
+
+        for (int dir = 0; dir < 3; dir++)
+        {// two passes: count the edges of every cell, then fill them.
+            int[] offsets = new int[columns * rows + 1];
+            for (int pass = 0; pass < 2; pass++)
+            {
+                int[] fill = pass == 0 ? null : Arrays.copyOf(offsets, offsets.length - 1);
+                int[] edges = pass == 0 ? null : new int[offsets[offsets.length - 1]];
+                for (int e = 0; e < m; e++)
+                {
+                    int src = source[e];
+                    int dest = graph.target(e);
+                    if (direction(graph.ids[src], graph.ids[dest]) != dir)
+                        continue;
+                    int c0 = column(Math.min(graph.x[src], graph.x[dest]) - margin[e]);
+                    int c1 = column(Math.max(graph.x[src], graph.x[dest]) + margin[e]);
+                    int r0 = row(Math.min(graph.y[src], graph.y[dest]) - margin[e]);
+                    int r1 = row(Math.max(graph.y[src], graph.y[dest]) + margin[e]);
+                    for (int r = r0; r <= r1; r++)
+                        for (int c = c0; c <= c1; c++)
+                        {
+                            if (pass == 0)
+                                offsets[r * columns + c + 1]++;
+                            else
+                                edges[fill[r * columns + c]++] = e;
+                        }
+                }
+                if (pass == 0)
+                    for (int i = 0; i < columns * rows; i++)
+                        offsets[i + 1] += offsets[i];
+                else
+                    cellEdges[dir] = edges;
+            }
+            cellOffsets[dir] = offsets;
+        }
+    }
+
+    private static int direction(int srcId, int destId) {
+        return srcId < destId ? UP : srcId > destId ? DOWN : LOOP;
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - minX) / cellWidth)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellHeight)));
+    }
+
+    /**
+     * get the snapshot the index was built for
+     * @return CsrGraph
+     */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * find the edge a point is on. a positive type only fits edges going from a lower id to a higher id,
+     * a negative type only the opposite direction (self loops fit both).
+     * @param pos the point location
+     * @param type pokemon type as integer
+     * @return the edge with the lowest position in the snapshot that fits (the same object on every call), null if none
+     */
+    public Edge find(Location pos, int type)
+    {
+        int cell = row(pos.y()) * columns + column(pos.x());
+        int best = -1;
+        if (type >= 0)
+            best = first(UP, cell, pos, best);
+        if (type <= 0)
+            best = first(DOWN, cell, pos, best);
+        best = first(LOOP, cell, pos, best);
+        if (best < 0)
+            return null;
+        return edges[best];
+    }
+
+    private int first(int dir, int cell, Location pos, int best)
+    {//the first edge of the cell (lower than best) that the point is on.
+        int[] edges = cellEdges[dir];
+        for (int i = cellOffsets[dir][cell]; i < cellOffsets[dir][cell + 1]; i++)
+        {
+            int e = edges[i];
+            if (best >= 0 && e > best)
+                break;
+            int src = source[e];
+            int dest = graph.target(e);
+            double distSrcPok = Math.sqrt(Math.pow((graph.x[src] - pos.x()), 2) + Math.pow((graph.y[src] - pos.y()), 2)); // distance from src to the pokemon
+            double distDestPok = Math.sqrt(Math.pow((graph.x[dest] - pos.x()), 2) + Math.pow((graph.y[dest] - pos.y()), 2)); // distance from dest to the pokemon
+            if (Math.abs(length[e] - (distDestPok + distSrcPok)) < EPS)
+                return e;
+        }
+        return best;
+    }
+}
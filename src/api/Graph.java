@@ -1,7 +1,18 @@
 package api;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.function.Consumer;
@@ -11,47 +22,88 @@ import java.util.function.Consumer;
  */
 public class Graph
 {
-    private HashMap<Integer, Node> nodes; //the key is the node id.
-    private HashMap<String, Edge> edges; // for example, if src=2 and dest=4 then the key is the string: "2,4"
-    private int MC; //count changes in the graph.
-    private HashMap<Integer, HashMap<Integer, Edge>> outEdges;
-    private HashMap<Integer, HashMap<Integer, Edge>> inEdges;
+    private IntHashMap<Node> nodes; //the key is the node id.
+    double[] xs; //the coordinates of the nodes, by the node slot (look up Node)
+    double[] ys;
+    double[] zs;
+    private int slots; //amount of slots in use or free
+    private int[] freeSlots; //slots of removed nodes, used again by new nodes
+    private int freeCount;
+    private LongHashMap<Edge> edges; // the key is the src id in the high 32 bits and the dest id in the low 32 bits (look up edgeKey).
+    private volatile int MC; //count changes in the graph.
+    private IntHashMap<IntHashMap<Edge>> outEdges; //first key is the src id and the second is the dest id.
+    private IntHashMap<IntHashMap<Edge>> inEdges; //first key is the dest id and the second is the src id.
     public HashMap<Integer, Integer> changes; //save amount of changes to a specific node outEdges
+    private int batchDepth; //amount of open batches, MC is not changed while it is positive.
+    private boolean batchChanged; //true if the graph changed during the open batch.
+    private volatile long revision; //count every change, also inside a batch (MC does not).
+    private volatile Snapshot published; //the last immutable version of the graph given to readers.
+    private final ArrayList<GraphListener> listeners = new ArrayList<>(); //get every change when it happens
+    private final ArrayList<GraphListener> batchListeners = new ArrayList<>(); //get the changes of a batch when it is closed
+    private ChangeLog changeLog; //the changes of the open batch, for the batch listeners
 
 
-    public Graph(String jsonStr)
-    {//constructor from json file string
-        nodes = new HashMap<>();
-        edges = new HashMap<>();
-        outEdges = new HashMap<>();
-        inEdges = new HashMap<>();
+    public Graph()
+    {//constructor of an empty graph
+        nodes = new IntHashMap<>();
+        edges = new LongHashMap<>();
+        outEdges = new IntHashMap<>();
+        inEdges = new IntHashMap<>();
         changes = new HashMap<>();
+        xs = new double[16];
+        ys = new double[16];
+        zs = new double[16];
+        freeSlots = new int[16];
         MC = 0;
+    }
 
-        JSONObject j = new JSONObject(jsonStr);
-        JSONArray jEdges = j.getJSONArray("Edges");
-        JSONArray jNodes = j.getJSONArray("Nodes");
-        for(int i = 0; i < jNodes.length(); i++)
+    public Graph(String jsonStr)
+    {//constructor from json file string
+        this();
+        try
         {
-            String pos=jNodes.getJSONObject(i).getString("pos");
-            int id=jNodes.getJSONObject(i).getInt("id");
-
-            String[] loc_of_node = pos.split(",");
-            double x = Double.parseDouble(loc_of_node[0]);
-            double y = Double.parseDouble(loc_of_node[1]);
-            double z = Double.parseDouble(loc_of_node[2]);
-            Node node = new Node(id, x, y, z);
-            addNode(node);
-            MC = 0;
-        }
-        for(int i = 0; i < jEdges.length(); i++)
+            GraphReader.read(new StringReader(jsonStr), this);
+        }
+        catch (IOException e) //a string reader does not throw
+        {
+            throw new UncheckedIOException(e);
+        }
+        MC = 0;
+    }
+
+    /**
+     * load a graph from json text without building the json document in memory
+     * @param in reader of the json text
+     * @return the new graph
+     */
+    public static Graph load(Reader in) throws IOException
+    {
+        Graph g = new Graph();
+        GraphReader.read(in, g);
+        g.MC = 0;
+        return g;
+    }
+
+    /**
+     * load a graph from a utf-8 json stream
+     * @param in stream of the json text
+     * @return the new graph
+     */
+    public static Graph load(InputStream in) throws IOException
+    {
+        return load(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * load a graph from a json file
+     * @param file path of the json file
+     * @return the new graph
+     */
+    public static Graph load(Path file) throws IOException
+    {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8))
         {
-            int src = jEdges.getJSONObject(i).getInt("src");
-            double w = jEdges.getJSONObject(i).getDouble("w");
-            int dest = jEdges.getJSONObject(i).getInt("dest");
-            connect(src, dest, w);
-            changes.put(dest, 0);
-            MC = 0;
+            return load(in);
         }
     }
 
@@ -70,19 +122,37 @@ public class Graph
      * @return Edge
      */
     public Edge getEdge(int src, int dest) {
-        String str = src + "," + dest; //every edge will be saved by string representing the edge src and dest with "," between them.
-        return edges.get(str);
+        return edges.get(edgeKey(src, dest)); //o(1) without allocating a key.
+    }
+
+    /**
+     * pack the src and dest of an edge into a single long key
+     * @param src - the id of the node the edge coming from
+     * @param dest - the id of the node the edge go to
+     * @return long
+     */
+    static long edgeKey(int src, int dest) {
+        return ((long) src << 32) | (dest & 0xFFFFFFFFL);
     }
 
     /**
      * add a node to the graph
      * @param n the new node
      */
-    public void addNode(Node n)
+    public synchronized void addNode(Node n)
     {// hash map complexity of put is o(1) so the toal complexity of adding new node is o(1).
-        nodes.put(n.getKey() , new Node(n.getKey(), n.getLocation().x(), n.getLocation().y(), n.getLocation().z()));
+        Location loc = n.getLocation();
+        int slot = allocateSlot();
+        xs[slot] = loc.x();
+        ys[slot] = loc.y();
+        zs[slot] = loc.z();
+        Node node = new Node(n.getKey(), this, slot); //the graph keeps its own node, a view of the coordinates arrays.
+        Node old = nodes.put(n.getKey(), node);
+        if (old != null)
+            releaseSlot(old);
         changes.put(n.getKey(), 0);
-        MC++;
+        modified();
+        nodeChanged(n.getKey(), old, node);
     }
 
     /**
@@ -91,17 +161,143 @@ public class Graph
      * @param dest - the destination of the edge.
      * @param w - positive weight representing the cost (aka time, price, etc) between src-->dest.
      */
-    public void connect(int src, int dest, double w)
+    public synchronized void connect(int src, int dest, double w)
     {//hash map complexity of put is o(1) so total complexity would be o(1).
-        inEdges.put(dest, new HashMap<>());
-        outEdges.put(src, new HashMap<>());
         Edge e = new Edge(src, dest, w);
-        String str = src + "," + dest;
-        edges.put(str, e);
-        inEdges.get(dest).put(src, e);
-        outEdges.get(src).put(dest, e);
+        Edge old = edges.put(edgeKey(src, dest), e);
+        adjacency(inEdges, dest).put(src, e);
+        adjacency(outEdges, src).put(dest, e);
         changes.put(src, changes.get(src)+1);
-        MC++;
+        modified();
+        edgeChanged(old, e);
+    }
+
+    private int allocateSlot()
+    {
+        if (freeCount > 0)
+            return freeSlots[--freeCount];
+        if (slots == xs.length)
+            growSlots(slots * 2);
+        return slots++;
+    }
+
+    private void growSlots(int capacity)
+    {
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+    }
+
+    private void releaseSlot(Node node)
+    {//the node keeps a copy of its coordinates, and the slot can be used by a new node.
+        int slot = node.slot();
+        node.detach();
+        if (freeCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * get the location of a node by its slot
+     */
+    Location location(int slot) {
+        return new Location(xs[slot], ys[slot], zs[slot]);
+    }
+
+    /**
+     * getters for the coordinates of a node by its slot, for scans that should not allocate a Location
+     * @return double
+     */
+    double x(int slot) {
+        return xs[slot];
+    }
+
+    double y(int slot) {
+        return ys[slot];
+    }
+
+    double z(int slot) {
+        return zs[slot];
+    }
+
+    /**
+     * change the coordinates of a node by its slot. this does not change MC, but it is a new version for snapshot().
+     */
+    synchronized void setLocation(int slot, Location p)
+    {
+        xs[slot] = p.x();
+        ys[slot] = p.y();
+        zs[slot] = p.z();
+        revision++;
+    }
+
+    private static IntHashMap<Edge> adjacency(IntHashMap<IntHashMap<Edge>> map, int id)
+    {//get the edges map of a node, and create it on the first edge.
+        IntHashMap<Edge> adj = map.get(id);
+        if (adj == null)
+        {
+            adj = new IntHashMap<>();
+            map.put(id, adj);
+        }
+        return adj;
+    }
+
+    private void unlink(Edge e)
+    {//remove an edge from the out and in maps (the caller removes it from the edges map).
+        IntHashMap<Edge> out = outEdges.get(e.getSrc());
+        if (out != null)
+            out.remove(e.getDest());
+        IntHashMap<Edge> in = inEdges.get(e.getDest());
+        if (in != null)
+            in.remove(e.getSrc());
+        changes.computeIfPresent(e.getSrc(), (k, v) -> v + 1);
+    }
+
+    /**
+     * take an immutable compressed sparse row snapshot of the graph.
+     * the snapshot does not change when the graph does, so read only algorithms can run on it.
+     * @return CsrGraph
+     */
+    public CsrGraph freeze()
+    {// o(V*logV + E)
+        return CsrGraph.of(this);
+    }
+
+    /**
+     * get the current immutable version of the graph. this is safe to call from any thread:
+     * as long as the graph did not change the same version is returned without any lock, and after a change
+     * the first caller builds and publishes the new version. while a batch is open the last version from before it
+     * is returned, so readers never see half of a batch (if no version was ever taken before the batch opened,
+     * there is none from before it and the first one is built from the current state). readers on other threads (algorithms, the gui) should work
+     * on the snapshot, the live getNode/getEdge/iterators belong to the thread that changes the graph.
+     * @return CsrGraph
+     */
+    public CsrGraph snapshot()
+    {
+        Snapshot s = published;
+        if (s != null && s.revision == revision) //no change since the last version, o(1).
+            return s.graph;
+        synchronized (this)
+        {
+            s = published;
+            if (s != null && (s.revision == revision || batchDepth > 0))
+                return s.graph;
+            CsrGraph g = CsrGraph.of(this);
+            published = new Snapshot(g, revision);
+            return g;
+        }
+    }
+
+    private static final class Snapshot
+    {//a published version and the revision it was built from.
+        final CsrGraph graph;
+        final long revision;
+
+        Snapshot(CsrGraph graph, long revision)
+        {
+            this.graph = graph;
+            this.revision = revision;
+        }
     }
 
     public Iterator<Node> nodeIter()
@@ -119,26 +315,67 @@ public class Graph
         return new SpecificNodesIterator(node_id);
     }
 
+    /**
+     * iterator over the edges going to a node. connect does not check the dest, so a node can have edges
+     * coming in when it is added (for listeners that keep their own adjacency).
+     * @param key the node id
+     * @return Iterator
+     */
+    Iterator<Edge> inEdgeIter(int key)
+    {
+        IntHashMap<Edge> in = inEdges.get(key);
+        return in == null ? Collections.<Edge>emptyIterator() : in.values();
+    }
+
     /**
      * remove the node with the given key (=id)
      * @param key the node id we want to remove
      * @return  erased Node
      */
-    public Node removeNode(int key)
-    {
-        Iterator<Edge> edgesIter = edgeIter();
-        while (edgesIter.hasNext()) //go over all the graph edges. o(E)
+    public synchronized Node removeNode(int key)
+    {// only the edges of the node are visited, so the complexity is o(in degree + out degree).
+        Node node = nodes.remove(key);
+        if (node == null)
+            return null;
+        releaseSlot(node);
+        detach(key);
+        modified(); //a single change for the node and all its edges.
+        nodeChanged(key, node, null);
+        return node;
+    }
+
+    private void detach(int key)
+    {//remove all the edges coming from or going to a removed node.
+        IntHashMap<Edge> out = outEdges.remove(key);
+        if (out != null) //the edges coming out of the node.
         {
-            Edge e = edgesIter.next();
-            if (e.getSrc() == key || e.getDest() == key) //check if the edge comes from or to the deleted node, and then remove it.
+            Iterator<Edge> iter = out.values();
+            while (iter.hasNext())
             {
-                edgesIter.remove();
-                MC++;
+                Edge e = iter.next();
+                if (edges.remove(edgeKey(key, e.getDest())) != null)
+                    edgeChanged(e, null);
+                IntHashMap<Edge> in = inEdges.get(e.getDest());
+                if (in != null)
+                    in.remove(key);
+            }
+        }
+        IntHashMap<Edge> in = inEdges.remove(key);
+        if (in != null) //the edges going to the node.
+        {
+            Iterator<Edge> iter = in.values();
+            while (iter.hasNext())
+            {
+                Edge e = iter.next();
+                if (edges.remove(edgeKey(e.getSrc(), key)) != null)
+                    edgeChanged(e, null);
+                IntHashMap<Edge> srcOut = outEdges.get(e.getSrc());
+                if (srcOut != null)
+                    srcOut.remove(key);
+                changes.computeIfPresent(e.getSrc(), (k, v) -> v + 1);
             }
         }
         changes.remove(key);
-        MC++;
-        return nodes.remove(key); //o(1)
     }
 
     /**
@@ -147,14 +384,15 @@ public class Graph
      * @param dest - the id of the node the edge go to
      * @return erased Edge
      */
-    public Edge removeEdge(int src, int dest)
+    public synchronized Edge removeEdge(int src, int dest)
     {
-        outEdges.get(src).remove(dest);
-        inEdges.get(dest).remove(src);
-        String str = src + "," + dest;
-        changes.put(src, changes.get(src)+1);
-        MC++;
-        return edges.remove(str);
+        Edge e = edges.remove(edgeKey(src, dest));
+        if (e == null)
+            return null;
+        unlink(e);
+        modified();
+        edgeChanged(e, null);
+        return e;
     }
 
     /**
@@ -181,15 +419,264 @@ public class Graph
         return MC;
     }
 
+    private void modified()
+    {//count a change, or remember it for the end of the open batch.
+        revision++;
+        if (batchDepth > 0)
+            batchChanged = true;
+        else
+            MC++;
+    }
+
+    /**
+     * register a listener that gets every change of the graph when it happens
+     * @param listener the listener
+     */
+    public void addListener(GraphListener listener) {
+        addListener(listener, false);
+    }
+
+    /**
+     * register a listener for the changes of the graph
+     * @param listener the listener
+     * @param coalesce if true, the changes made inside a batch are reported once when the batch is closed,
+     *                 merged per node and per edge (for example an edge added and removed in the same batch is not reported)
+     */
+    public synchronized void addListener(GraphListener listener, boolean coalesce)
+    {
+        if (coalesce)
+            batchListeners.add(listener);
+        else
+            listeners.add(listener);
+    }
+
+    /**
+     * remove a registered listener
+     * @param listener the listener
+     */
+    public synchronized void removeListener(GraphListener listener)
+    {
+        listeners.remove(listener);
+        batchListeners.remove(listener);
+    }
+
+    private void nodeChanged(int key, Node before, Node after)
+    {//report a node change (before null = added, after null = removed).
+        for (GraphListener l : listeners)
+            report(l, before, after);
+        if (batchListeners.isEmpty())
+            return;
+        if (batchDepth > 0)
+            log().node(key, before);
+        else
+            for (GraphListener l : batchListeners)
+                report(l, before, after);
+    }
+
+    private void edgeChanged(Edge before, Edge after)
+    {//report an edge change (before null = added, after null = removed).
+        for (GraphListener l : listeners)
+            report(l, before, after);
+        if (batchListeners.isEmpty())
+            return;
+        if (batchDepth > 0)
+        {
+            Edge any = after != null ? after : before;
+            log().edge(edgeKey(any.getSrc(), any.getDest()), before);
+        }
+        else
+            for (GraphListener l : batchListeners)
+                report(l, before, after);
+    }
+
+    private static void report(GraphListener l, Node before, Node after)
+    {
+        if (before == null)
+            l.nodeAdded(after);
+        else if (after == null)
+            l.nodeRemoved(before);
+        else
+            l.nodeReplaced(before, after);
+    }
+
+    private static void report(GraphListener l, Edge before, Edge after)
+    {
+        if (before == null)
+            l.edgeAdded(after);
+        else if (after == null)
+            l.edgeRemoved(before);
+        else
+            l.edgeWeightChanged(before, after);
+    }
+
+    private ChangeLog log()
+    {
+        if (changeLog == null)
+            changeLog = new ChangeLog();
+        return changeLog;
+    }
+
+    /**
+     * This class keeps the state every node and edge had before the open batch touched it,
+     * so the batch listeners get only the difference between the start and the end of the batch.
+     */
+    private class ChangeLog
+    {
+        private final IntHashMap<Node[]> nodesBefore = new IntHashMap<>(); //node id -> {node before the batch or null}
+        private final LongHashMap<Edge[]> edgesBefore = new LongHashMap<>(); //edge key -> {edge before the batch or null}
+        private final ArrayList<Integer> nodeOrder = new ArrayList<>();
+        private final ArrayList<Long> edgeOrder = new ArrayList<>();
+
+        void node(int key, Node before)
+        {
+            if (nodesBefore.get(key) != null) //only the first change keeps the state from before the batch.
+                return;
+            nodesBefore.put(key, new Node[]{before});
+            nodeOrder.add(key);
+        }
+
+        void edge(long key, Edge before)
+        {
+            if (edgesBefore.get(key) != null)
+                return;
+            edgesBefore.put(key, new Edge[]{before});
+            edgeOrder.add(key);
+        }
+
+        void deliver()
+        {// added nodes first, then removed/changed/added edges, and removed nodes last.
+            for (int key : nodeOrder)
+            {
+                Node before = nodesBefore.get(key)[0];
+                Node after = nodes.get(key);
+                if (after != null && before != after)
+                    for (GraphListener l : batchListeners)
+                        report(l, before, after);
+            }
+            for (int pass = 0; pass < 2; pass++)
+                for (long key : edgeOrder)
+                {
+                    Edge before = edgesBefore.get(key)[0];
+                    Edge after = edges.get(key);
+                    if (before == after || (pass == 0) != (after == null))
+                        continue;
+                    if (before != null && after != null && before.getWeight() == after.getWeight())
+                        continue;
+                    for (GraphListener l : batchListeners)
+                        report(l, before, after);
+                }
+            for (int key : nodeOrder)
+            {
+                Node before = nodesBefore.get(key)[0];
+                if (before != null && nodes.get(key) == null)
+                    for (GraphListener l : batchListeners)
+                        report(l, before, null);
+            }
+        }
+    }
+
+    /**
+     * open a batch of changes. all the changes made through the batch (or directly on the graph) until it is
+     * closed count as a single change of MC. iterators must not be used while a batch is open.
+     * @return the open batch
+     */
+    public Batch batch() {
+        return batch(0, 0);
+    }
+
+    /**
+     * open a batch of changes and resize the graph storage once for the expected amount of nodes and edges.
+     * @param expectedNodes amount of nodes the graph is expected to hold after the batch
+     * @param expectedEdges amount of edges the graph is expected to hold after the batch
+     * @return the open batch
+     */
+    public synchronized Batch batch(int expectedNodes, int expectedEdges)
+    {
+        nodes.ensureCapacity(expectedNodes);
+        if (expectedNodes > xs.length)
+            growSlots(expectedNodes);
+        outEdges.ensureCapacity(expectedNodes);
+        inEdges.ensureCapacity(expectedNodes);
+        edges.ensureCapacity(expectedEdges);
+        // readers during the batch get the state from before it. only when snapshots are in use (a version was
+        // published), a graph nobody reads through snapshot() does not pay a copy for every batch.
+        if (batchDepth == 0 && published != null && published.revision != revision)
+            published = new Snapshot(CsrGraph.of(this), revision);
+        batchDepth++;
+        return new Batch();
+    }
+
+    /**
+     * This class is a mutation session on the graph (look up Graph.batch).
+     * it can be used with try-with-resources, and MC changes once when it is closed.
+     */
+    public class Batch implements AutoCloseable
+    {
+        private boolean open = true;
+
+        private Batch() {}
+
+        public Batch addNode(Node n)
+        {
+            Graph.this.addNode(n);
+            return this;
+        }
+
+        public Batch connect(int src, int dest, double w)
+        {
+            Graph.this.connect(src, dest, w);
+            return this;
+        }
+
+        public Batch removeEdge(int src, int dest)
+        {
+            Graph.this.removeEdge(src, dest);
+            return this;
+        }
+
+        public Batch removeNode(int key)
+        {
+            Graph.this.removeNode(key);
+            return this;
+        }
+
+        /**
+         * close the batch and count all its changes as one
+         */
+        @Override
+        public void close()
+        {
+            synchronized (Graph.this)
+            {
+                if (!open)
+                    return;
+                open = false;
+                batchDepth--;
+                if (batchDepth == 0 && batchChanged)
+                {
+                    batchChanged = false;
+                    MC++;
+                }
+                if (batchDepth == 0 && changeLog != null)
+                {
+                    ChangeLog log = changeLog;
+                    changeLog = null;
+                    log.deliver();
+                }
+            }
+        }
+    }
+
 
     private class NodeIterator implements Iterator<Node>
     {
         int mc;
         private final Iterator<Node> iter;
+        private Node last;
 
         public NodeIterator()
         {
-            iter = nodes.values().iterator();
+            iter = nodes.values();
             mc = getMC();
         }
         @Override
@@ -198,26 +685,33 @@ public class Graph
             if (mc == getMC())
                 return iter.hasNext();
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
         @Override
         public Node next()
         {
             if (mc == getMC())
-                return iter.next();
+                return last = iter.next();
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
         @Override
         public void remove()
-        {
+        {//remove the last node and its edges from the graph.
             if (mc == getMC())
             {
-                iter.remove();
-                mc++;
+                synchronized (Graph.this)
+                {
+                    iter.remove();
+                    releaseSlot(last);
+                    detach(last.getKey());
+                    modified();
+                    nodeChanged(last.getKey(), last, null);
+                    mc = getMC();
+                }
             }
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
         @Override
         public void forEachRemaining(Consumer<? super Node> action)
@@ -231,9 +725,11 @@ public class Graph
         int mc;
         private final Iterator<Edge> iter;
 
+        private Edge last;
+
         public EdgeIterator()
         {
-            iter = edges.values().iterator();
+            iter = edges.values();
             mc = getMC();
         }
         @Override
@@ -242,26 +738,32 @@ public class Graph
             if (mc == getMC())
                 return iter.hasNext();
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
         @Override
         public Edge next()
         {
             if (mc == getMC())
-                return iter.next();
+                return last = iter.next();
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
         @Override
         public void remove()
-        {
+        {//remove the last edge from all the maps of the graph.
             if (mc == getMC())
             {
-                iter.remove();
-                mc++;
+                synchronized (Graph.this)
+                {
+                    iter.remove();
+                    unlink(last);
+                    modified();
+                    edgeChanged(last, null);
+                    mc = getMC();
+                }
             }
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
 
         @Override
@@ -276,11 +778,13 @@ public class Graph
         int mc;
         int id;
         private final Iterator<Edge> iter;
+        private Edge last;
 
         public SpecificNodesIterator(int node_id)
         {
             id = node_id;
-            iter = outEdges.get(node_id).values().iterator();
+            IntHashMap<Edge> out = outEdges.get(node_id);
+            iter = out == null ? Collections.emptyIterator() : out.values();
             mc = changes.get(node_id);
         }
         @Override
@@ -289,26 +793,36 @@ public class Graph
             if (mc == changes.get(id))
                 return iter.hasNext();
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
         @Override
         public Edge next()
         {
             if (mc == changes.get(id))
-                return iter.next();
+                return last = iter.next();
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
         @Override
         public void remove()
-        {
+        {//remove the last edge from all the maps of the graph.
             if (mc == changes.get(id))
             {
-                iter.remove();
-                mc++;
+                synchronized (Graph.this)
+                {
+                    iter.remove();
+                    edges.remove(edgeKey(last.getSrc(), last.getDest()));
+                    IntHashMap<Edge> in = inEdges.get(last.getDest());
+                    if (in != null)
+                        in.remove(last.getSrc());
+                    changes.put(id, changes.get(id)+1);
+                    modified();
+                    edgeChanged(last, null);
+                    mc++;
+                }
             }
             else
-                throw new RuntimeException();
+                throw new ConcurrentModificationException();
         }
 
         @Override
@@ -0,0 +1,47 @@
+package api;
+
+/**
+ * This interface gets the changes of a Graph (look up Graph.addListener), so structures built on top of the graph
+ * can update themselves instead of being rebuilt. the functions are called on the thread that changes the graph,
+ * after the change, while the graph is locked. every function does nothing by default.
+ */
+public interface GraphListener
+{
+    /**
+     * a new node was added
+     * @param node the added node
+     */
+    default void nodeAdded(Node node) {}
+
+    /**
+     * a node was added with the id of an existing node, and replaced it (its edges stay)
+     * @param oldNode the node that was replaced
+     * @param newNode the new node
+     */
+    default void nodeReplaced(Node oldNode, Node newNode) {}
+
+    /**
+     * a node was removed. the removal of its edges is reported before it.
+     * @param node the removed node
+     */
+    default void nodeRemoved(Node node) {}
+
+    /**
+     * a new edge was added
+     * @param edge the added edge
+     */
+    default void edgeAdded(Edge edge) {}
+
+    /**
+     * an existing edge was connected again with a new weight
+     * @param oldEdge the edge before the change
+     * @param newEdge the edge after the change
+     */
+    default void edgeWeightChanged(Edge oldEdge, Edge newEdge) {}
+
+    /**
+     * an edge was removed
+     * @param edge the removed edge
+     */
+    default void edgeRemoved(Edge edge) {}
+}
@@ -0,0 +1,539 @@
+package api;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * This class loads a graph json ({"Edges":[{"src":0,"w":1.4,"dest":1},..],"Nodes":[{"pos":"x,y,z","id":0},..]})
+ * straight into a Graph. the text is tokenized from the reader through a fixed buffer, so no JSONObject
+ * or intermediate String is built for the nodes and edges, and the memory used does not depend on the file size
+ * (except for the edges that appear before the nodes, which are kept in primitive arrays until the nodes are added).
+ */
+final class GraphReader
+{
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22}; //exact powers of ten as doubles
+    private static final int MIN_POW5 = -342, MAX_POW5 = 308;
+    private static final long[] POW5_HI = new long[MAX_POW5 - MIN_POW5 + 1]; //5^q as 128 bits, the top bit set
+    private static final long[] POW5_LO = new long[MAX_POW5 - MIN_POW5 + 1];
+
+    static
+    {// the powers of five for Eisel-Lemire, truncated to 128 bits (the negative ones are 2^b / 5^-q rounded up).
+        BigInteger top = BigInteger.ONE.shiftLeft(128);
+        for (int q = MIN_POW5; q <= MAX_POW5; q++)
+        {
+            BigInteger c;
+            if (q < 0)
+            {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.subtract(BigInteger.ONE).bitLength(); //the lowest z with 2^z >= 5^-q
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(top) >= 0)
+                    c = c.shiftRight(1);
+            }
+            else
+            {
+                c = BigInteger.valueOf(5).pow(q);
+                int shift = 128 - c.bitLength();
+                c = shift >= 0 ? c.shiftLeft(shift) : c.shiftRight(-shift);
+            }
+            POW5_HI[q - MIN_POW5] = c.shiftRight(64).longValue();
+            POW5_LO[q - MIN_POW5] = c.longValue();
+        }
+    }
+
+    private final Reader in;
+    private final char[] buf = new char[1 << 16];
+    private int pos;
+    private int limit;
+    private final char[] token = new char[128]; //the chars of the current key or number
+    private int tokenLength;
+
+    private final Graph graph;
+    private final Graph.Batch batch;
+    private boolean nodesAdded; //once the nodes are in the graph the edges can be connected directly.
+    private int[] pendingSrc = new int[0]; //edges that came before the nodes
+    private int[] pendingDest = new int[0];
+    private double[] pendingWeight = new double[0];
+    private int pending;
+
+    private GraphReader(Reader in, Graph graph)
+    {
+        this.in = in;
+        this.graph = graph;
+        this.batch = graph.batch();
+    }
+
+    /**
+     * read a json graph into an empty graph
+     * @param in the json text
+     * @param graph the graph to fill
+     */
+    static void read(Reader in, Graph graph) throws IOException
+    {
+        GraphReader reader = new GraphReader(in, graph);
+        try
+        {
+            reader.readGraph();
+        }
+        finally
+        {
+            reader.batch.close();
+        }
+    }
+
+    private void readGraph() throws IOException
+    {
+        expect('{');
+        if (peek() == '}')
+        {
+            next();
+            return;
+        }
+        do
+        {
+            readKey();
+            if (keyIs("Nodes"))
+                readArray(true);
+            else if (keyIs("Edges"))
+                readArray(false);
+            else
+                skipValue();
+        } while (nextSeparator('}'));
+        if (pending > 0) //edges without a Nodes array.
+            throw new JSONException("the graph has edges but no Nodes");
+    }
+
+    private void readArray(boolean nodes) throws IOException
+    {
+        expect('[');
+        if (peek() == ']')
+        {
+            next();
+        }
+        else
+        {
+            do
+            {
+                if (nodes)
+                    readNode();
+                else
+                    readEdge();
+            } while (nextSeparator(']'));
+        }
+        if (nodes) //the edges that were waiting for the nodes can be added now.
+        {
+            nodesAdded = true;
+            for (int i = 0; i < pending; i++)
+                connect(pendingSrc[i], pendingDest[i], pendingWeight[i]);
+            pending = 0;
+        }
+    }
+
+    private void readNode() throws IOException
+    {
+        int id = 0;
+        boolean hasId = false, hasPos = false;
+        double x = 0, y = 0, z = 0;
+        expect('{');
+        if (peek() != '}')
+        {
+            do
+            {
+                readKey();
+                if (keyIs("id"))
+                {
+                    id = readInt();
+                    hasId = true;
+                }
+                else if (keyIs("pos"))
+                {
+                    expect('"'); //the position is a string of three numbers: "x,y,z"
+                    x = readDouble();
+                    expect(',');
+                    y = readDouble();
+                    expect(',');
+                    z = readDouble();
+                    expect('"');
+                    hasPos = true;
+                }
+                else
+                    skipValue();
+            } while (nextSeparator('}'));
+        }
+        else
+            next();
+        if (!hasId || !hasPos)
+            throw new JSONException("a node must have an id and a pos");
+        batch.addNode(new Node(id, x, y, z));
+    }
+
+    private void readEdge() throws IOException
+    {
+        int src = 0, dest = 0;
+        double w = 0;
+        int found = 0;
+        expect('{');
+        if (peek() != '}')
+        {
+            do
+            {
+                readKey();
+                if (keyIs("src"))
+                {
+                    src = readInt();
+                    found |= 1;
+                }
+                else if (keyIs("dest"))
+                {
+                    dest = readInt();
+                    found |= 2;
+                }
+                else if (keyIs("w"))
+                {
+                    w = readDouble();
+                    found |= 4;
+                }
+                else
+                    skipValue();
+            } while (nextSeparator('}'));
+        }
+        else
+            next();
+        if (found != 7)
+            throw new JSONException("an edge must have a src, a dest and a w");
+        if (nodesAdded)
+        {
+            connect(src, dest, w);
+            return;
+        }
+        if (pending == pendingSrc.length) //grow the waiting edges arrays.
+        {
+            int size = Math.max(16, pending * 2);
+            pendingSrc = Arrays.copyOf(pendingSrc, size);
+            pendingDest = Arrays.copyOf(pendingDest, size);
+            pendingWeight = Arrays.copyOf(pendingWeight, size);
+        }
+        pendingSrc[pending] = src;
+        pendingDest[pending] = dest;
+        pendingWeight[pending] = w;
+        pending++;
+    }
+
+    private void connect(int src, int dest, double w)
+    {
+        if (graph.getNode(src) == null)
+            throw new JSONException("edge from an unknown node " + src);
+        batch.connect(src, dest, w);
+    }
+
+    private boolean fill() throws IOException
+    {//make sure there is an unread char in the buffer, false at the end of the text.
+        if (pos < limit)
+            return true;
+        limit = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (limit <= 0)
+        {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private int read() throws IOException
+    {//next raw char, -1 at the end of the text.
+        return fill() ? buf[pos++] : -1;
+    }
+
+    private int peekRaw() throws IOException
+    {
+        return fill() ? buf[pos] : -1;
+    }
+
+    private int peek() throws IOException
+    {//next char that is not a white space, without consuming it.
+        while (fill())
+        {
+            char c = buf[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                return c;
+            pos++;
+        }
+        return -1;
+    }
+
+    private int next() throws IOException
+    {
+        int c = peek();
+        if (c != -1)
+            pos++;
+        return c;
+    }
+
+    private void expect(char c) throws IOException
+    {
+        int got = next();
+        if (got != c)
+            throw new JSONException("expected '" + c + "' but found " + (got == -1 ? "end of text" : "'" + (char) got + "'"));
+    }
+
+    private boolean nextSeparator(char close) throws IOException
+    {//true if another member follows, false at the end of the object/array.
+        int c = next();
+        if (c == ',')
+            return true;
+        if (c == close)
+            return false;
+        throw new JSONException("expected ',' or '" + close + "'");
+    }
+
+    private void readKey() throws IOException
+    {
+        expect('"');
+        tokenLength = 0;
+        int c;
+        while ((c = read()) != '"')
+        {
+            if (c == -1)
+                throw new JSONException("unterminated string");
+            if (c == '\\')
+                c = read();
+            if (tokenLength < token.length)
+                token[tokenLength] = (char) c;
+            tokenLength++;
+        }
+        expect(':');
+    }
+
+    private boolean keyIs(String key)
+    {
+        if (tokenLength != key.length())
+            return false;
+        for (int i = 0; i < tokenLength; i++)
+            if (token[i] != key.charAt(i))
+                return false;
+        return true;
+    }
+
+    private void readNumberToken() throws IOException
+    {
+        peek();
+        tokenLength = 0;
+        while (true)
+        {
+            if (!fill())
+                break;
+            char c = buf[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E')
+            {
+                if (tokenLength == token.length)
+                    throw new JSONException("number too long");
+                token[tokenLength++] = c;
+                pos++;
+            }
+            else
+                break;
+        }
+        if (tokenLength == 0)
+            throw new JSONException("expected a number");
+    }
+
+    private int readInt() throws IOException
+    {
+        double d = readDouble();
+        if (d != (int) d)
+            throw new JSONException("expected an integer");
+        return (int) d;
+    }
+
+    private double readDouble() throws IOException
+    {
+        readNumberToken();
+        double value = parse(token, tokenLength);
+        if (Double.isNaN(value)) //very long or extreme numbers need the full parser.
+            value = Double.parseDouble(new String(token, 0, tokenLength));
+        return value;
+    }
+
+    /**
+     * parse a json number from chars, correctly rounded like Double.parseDouble but without a String
+     * @param chars the number text
+     * @param length amount of chars
+     * @return the number, NaN if it has more than 18 significant digits or an exponent out of the table range
+     *         (then Double.parseDouble should be used)
+     */
+    static double parse(char[] chars, int length)
+    {
+        int i = 0;
+        boolean negative = false;
+        if (chars[i] == '-' || chars[i] == '+')
+            negative = chars[i++] == '-';
+        long mantissa = 0;
+        int digits = 0; //significant digits in the mantissa
+        boolean truncated = false; //a non zero digit did not fit in the mantissa
+        int exp = 0;
+        boolean dot = false, any = false;
+        for (; i < length; i++)
+        {
+            char c = chars[i];
+            if (c >= '0' && c <= '9')
+            {
+                any = true;
+                if (digits < 18)
+                {
+                    if (mantissa != 0 || c != '0')
+                        digits++;
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (dot)
+                        exp--;
+                }
+                else
+                {
+                    if (!dot)
+                        exp++;
+                    if (c != '0')
+                        truncated = true;
+                }
+            }
+            else if (c == '.' && !dot)
+                dot = true;
+            else
+                break;
+        }
+        if (!any)
+            throw new JSONException("expected a number");
+        if (i < length) //the exponent part
+        {
+            if (chars[i] != 'e' && chars[i] != 'E')
+                throw new JSONException("bad number");
+            i++;
+            boolean expNegative = false;
+            if (i < length && (chars[i] == '-' || chars[i] == '+'))
+                expNegative = chars[i++] == '-';
+            int e = 0;
+            if (i == length)
+                throw new JSONException("bad number");
+            for (; i < length; i++)
+            {
+                char c = chars[i];
+                if (c < '0' || c > '9')
+                    throw new JSONException("bad number");
+                e = Math.min(e * 10 + (c - '0'), 100000);
+            }
+            exp += expNegative ? -e : e;
+        }
+        if (truncated)
+            return Double.NaN;
+        double value;
+        // with at most 15 significant digits and a small power of ten both numbers are exact doubles,
+        // so a single multiply or divide gives the correctly rounded result.
+        if (digits <= 15 && exp >= -22 && exp <= 22)
+            value = exp >= 0 ? mantissa * POW10[exp] : mantissa / POW10[-exp];
+        else
+            value = eiselLemire(mantissa, exp); //the 16 and 17 digits of the map files.
+        return negative ? -value : value;
+    }
+
+    /**
+     * Eisel-Lemire: the correctly rounded double of mantissa * 10^exp from a 128 bit product with a truncated
+     * power of five. in the rare cases where the truncation could change the rounding it gives up.
+     * @param mantissa the decimal digits, at most 18
+     * @param exp the power of ten
+     * @return the double, NaN if it can not decide (or the result is subnormal or infinite)
+     */
+    static double eiselLemire(long mantissa, int exp)
+    {
+        if (mantissa == 0)
+            return 0.0;
+        if (exp < MIN_POW5 || exp > MAX_POW5)
+            return Double.NaN;
+        int clz = Long.numberOfLeadingZeros(mantissa);
+        long man = mantissa << clz;
+        long exp2 = ((217706L * exp) >> 16) + 64 + 1023 - clz;
+        long powHi = POW5_HI[exp - MIN_POW5], powLo = POW5_LO[exp - MIN_POW5];
+        long xHi = multiplyHighUnsigned(man, powHi), xLo = man * powHi;
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0)
+        {// the low bits may carry into the result, add the product with the next 64 bits of the power.
+            long yHi = multiplyHighUnsigned(man, powLo), yLo = man * powLo;
+            long mergedHi = xHi, mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0)
+                mergedHi++;
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + man, man) < 0)
+                return Double.NaN;
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+        long msb = xHi >>> 63; //shift to 54 bits
+        long bits = xHi >>> (msb + 9);
+        exp2 -= 1 ^ msb;
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (bits & 3) == 1) //exactly half way, the truncation hides the side.
+            return Double.NaN;
+        bits += bits & 1; //round to 53 bits
+        bits >>>= 1;
+        if ((bits >>> 53) > 0)
+        {
+            bits >>>= 1;
+            exp2++;
+        }
+        if (exp2 <= 0 || exp2 >= 0x7FF)
+            return Double.NaN;
+        return Double.longBitsToDouble(exp2 << 52 | (bits & 0x000FFFFFFFFFFFFFL));
+    }
+
+    private static long multiplyHighUnsigned(long a, long b)
+    {// the high 64 bits of the unsigned 128 bit product, from the 32 bit halves (java 8 has no multiplyHigh).
+        long aLo = a & 0xFFFFFFFFL, aHi = a >>> 32;
+        long bLo = b & 0xFFFFFFFFL, bHi = b >>> 32;
+        long lowLow = aLo * bLo;
+        long highLow = aHi * bLo;
+        long lowHigh = aLo * bHi;
+        long middle = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + (lowHigh & 0xFFFFFFFFL); //can not overflow
+        return aHi * bHi + (highLow >>> 32) + (lowHigh >>> 32) + (middle >>> 32);
+    }
+
+    private void skipValue() throws IOException
+    {
+        int c = peek();
+        if (c == '{' || c == '[')
+        {
+            next();
+            char close = c == '{' ? '}' : ']';
+            if (peek() == close)
+            {
+                next();
+                return;
+            }
+            do
+            {
+                if (close == '}')
+                    readKey();
+                skipValue();
+            } while (nextSeparator(close));
+        }
+        else if (c == '"')
+        {
+            next();
+            int ch;
+            while ((ch = read()) != '"')
+            {
+                if (ch == -1)
+                    throw new JSONException("unterminated string");
+                if (ch == '\\')
+                    read();
+            }
+        }
+        else if (c == 't' || c == 'f' || c == 'n')
+        {
+            while ((c = peekRaw()) >= 'a' && c <= 'z')
+                pos++;
+        }
+        else
+            readNumberToken();
+    }
+}
@@ -0,0 +1,166 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class is a d-ary (binary by default) min heap of node indices with double keys, that supports decrease-key.
+ * the position of every node in the heap is kept in an array by node index, so a node is never pushed twice
+ * and no object is allocated for a push.
+ */
+final class IndexedHeap implements NodeQueue
+{
+    private final int arity; //amount of children of every heap position
+    private int[] heap = new int[16]; //heap position -> node
+    private double[] keys = new double[16]; //heap position -> key
+    private int[] pos = new int[0]; //node -> heap position, -1 after it was polled (only valid for nodes pushed since clear())
+    private int size;
+
+    IndexedHeap() {
+        this(2);
+    }
+
+    IndexedHeap(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public void reset(CsrGraph g)
+    {
+        ensureCapacity(g.nodeSize());
+        clear();
+    }
+
+    /**
+     * make room for node indices 0..n-1
+     */
+    void ensureCapacity(int n)
+    {
+        if (pos.length < n)
+            pos = Arrays.copyOf(pos, Math.max(n, pos.length * 2));
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * true if a node that was pushed since clear() is still in the heap
+     */
+    boolean contains(int v) {
+        return pos[v] >= 0 && pos[v] < size && heap[pos[v]] == v;
+    }
+
+    @Override
+    public void insert(int v, double key)
+    {
+        if (size == heap.length)
+        {
+            heap = Arrays.copyOf(heap, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        heap[size] = v;
+        keys[size] = key;
+        pos[v] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * lower the key of a node that is in the heap
+     */
+    @Override
+    public void decreaseKey(int v, double key)
+    {
+        int i = pos[v];
+        keys[i] = key;
+        siftUp(i);
+    }
+
+    /**
+     * change the key of a node that is in the heap, up or down
+     */
+    void changeKey(int v, double key)
+    {
+        int i = pos[v];
+        double old = keys[i];
+        keys[i] = key;
+        if (key < old)
+            siftUp(i);
+        else
+            siftDown(i);
+    }
+
+    @Override
+    public double minKey() {
+        return keys[0];
+    }
+
+    @Override
+    public int pollMin()
+    {
+        int v = heap[0];
+        pos[v] = -1;
+        size--;
+        if (size > 0)
+        {
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return v;
+    }
+
+    private void siftUp(int i)
+    {
+        int v = heap[i];
+        double key = keys[i];
+        while (i > 0)
+        {
+            int parent = (i - 1) / arity;
+            if (keys[parent] <= key)
+                break;
+            heap[i] = heap[parent];
+            keys[i] = keys[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        keys[i] = key;
+        pos[v] = i;
+    }
+
+    private void siftDown(int i)
+    {
+        int v = heap[i];
+        double key = keys[i];
+        while (true)
+        {
+            int first = arity * i + 1;
+            if (first >= size)
+                break;
+            int child = first; //the child with the lowest key
+            int last = Math.min(first + arity, size);
+            for (int c = first + 1; c < last; c++)
+                if (keys[c] < keys[child])
+                    child = c;
+            if (keys[child] >= key)
+                break;
+            heap[i] = heap[child];
+            keys[i] = keys[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        keys[i] = key;
+        pos[v] = i;
+    }
+}
@@ -0,0 +1,13 @@
+package api;
+
+/**
+ * The ways Algo.buildLandmarks can choose its landmarks
+ */
+public enum LandmarkSelection
+{
+    /** every new landmark is the node farthest from the landmarks chosen so far */
+    FARTHEST,
+    /** every new landmark is a leaf of the shortest path tree of a random node, under the subtree whose distances
+     *  the landmarks chosen so far bound worst (Goldberg and Werneck) */
+    AVOID
+}
@@ -0,0 +1,189 @@
+package api;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class is the ALT (A*, landmarks, triangle inequality) data of a graph snapshot: the distances from and to
+ * a few landmark nodes. for every landmark L the triangle inequality gives lower bounds of the distance from v to t:
+ * d(L,t) - d(L,v) and d(v,L) - d(t,L). the highest one is a consistent A* heuristic, so a search toward t settles
+ * only the nodes near the shortest path. it takes 2 * k * V doubles and 2 searches per landmark.
+ */
+final class Landmarks
+{
+    private final CsrGraph graph;
+    private final int[] landmarks; //dense indices
+    private final double[][] from; //landmark -> node -> d(landmark, node)
+    private final double[][] to; //landmark -> node -> d(node, landmark)
+
+    private Landmarks(CsrGraph graph, int[] landmarks, double[][] from, double[][] to)
+    {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * choose the landmarks of a graph and search their distances
+     * @param graph the snapshot
+     * @param count amount of landmarks (at most the amount of nodes)
+     * @param selection how to choose them
+     * @param dijkstra the workspace to search with
+     * @return the landmarks
+     */
+    static Landmarks build(CsrGraph graph, int count, LandmarkSelection selection, Dijkstra dijkstra)
+    {
+        int n = graph.nodeSize();
+        count = Math.min(count, n);
+        int[] chosen = new int[count];
+        double[][] from = new double[count][];
+        double[][] to = new double[count][];
+        Random random = new Random(n); //the same landmarks for the same graph
+        for (int k = 0; k < count; k++)
+        {
+            Landmarks sofar = new Landmarks(graph, Arrays.copyOf(chosen, k), Arrays.copyOf(from, k), Arrays.copyOf(to, k));
+            int landmark = selection == LandmarkSelection.AVOID ? sofar.avoid(random.nextInt(n), dijkstra) : sofar.farthest(random.nextInt(n), dijkstra);
+            chosen[k] = landmark;
+            from[k] = distances(graph, landmark, false, dijkstra);
+            to[k] = distances(graph, landmark, true, dijkstra);
+        }
+        return new Landmarks(graph, chosen, from, to);
+    }
+
+    private static double[] distances(CsrGraph graph, int landmark, boolean backward, Dijkstra dijkstra)
+    {
+        if (backward)
+            dijkstra.searchBackward(graph, landmark);
+        else
+            dijkstra.search(graph, landmark, -1);
+        double[] dist = new double[graph.nodeSize()];
+        for (int v = 0; v < dist.length; v++)
+            dist[v] = dijkstra.distance(v);
+        return dist;
+    }
+
+    private int farthest(int start, Dijkstra dijkstra)
+    {// the first landmark is the node farthest from a random node, the next ones the node with the highest
+        // distance to its closest landmark (both ways). a node a landmark can not reach (or not be reached from) is the farthest.
+        if (landmarks.length == 0)
+        {
+            dijkstra.search(graph, start, -1);
+            int best = start;
+            for (int v = 0; v < graph.nodeSize(); v++)
+                if (dijkstra.distance(v) != Dijkstra.INFINITY && dijkstra.distance(v) > dijkstra.distance(best))
+                    best = v;
+            return best;
+        }
+        int best = -1;
+        double bestDistance = -1;
+        for (int v = 0; v < graph.nodeSize(); v++)
+        {
+            double closest = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < landmarks.length; k++)
+            {
+                double d = from[k][v] == Dijkstra.INFINITY || to[k][v] == Dijkstra.INFINITY ? Double.MAX_VALUE : from[k][v] + to[k][v];
+                closest = Math.min(closest, d);
+            }
+            if (closest > bestDistance)
+            {
+                best = v;
+                bestDistance = closest;
+            }
+        }
+        return best;
+    }
+
+    private int avoid(int root, Dijkstra dijkstra)
+    {// the shortest path tree of a random root. the weight of a node is how much the current bound misses its
+        // distance (d(root,v) - h(root,v)), the size of a node is the weight of its subtree, or 0 if the subtree has
+        // a landmark. the new landmark is the leaf reached from the root by always going to the child with the highest size.
+        int n = graph.nodeSize();
+        dijkstra.search(graph, root, -1);
+        int[] parent = new int[n];
+        double[] dist = new double[n];
+        Integer[] order = new Integer[n];
+        int reached = 0;
+        for (int v = 0; v < n; v++)
+        {
+            parent[v] = dijkstra.predecessor(v);
+            dist[v] = dijkstra.distance(v);
+            if (dist[v] != Dijkstra.INFINITY)
+                order[reached++] = v;
+        }
+        Arrays.sort(order, 0, reached, (a, b) -> Double.compare(dist[b], dist[a])); //children before their parents
+        double[] size = new double[n];
+        boolean[] hasLandmark = new boolean[n];
+        for (int landmark : landmarks)
+            hasLandmark[landmark] = true;
+        for (int i = 0; i < reached; i++)
+        {
+            int v = order[i];
+            size[v] += dist[v] - estimate(root, v);
+            if (parent[v] >= 0)
+            {
+                size[parent[v]] += size[v];
+                hasLandmark[parent[v]] |= hasLandmark[v];
+            }
+        }
+        int[] childOffsets = new int[n + 1]; //the children of every node of the tree
+        for (int v = 0; v < n; v++)
+            if (parent[v] >= 0)
+                childOffsets[parent[v] + 1]++;
+        for (int v = 0; v < n; v++)
+            childOffsets[v + 1] += childOffsets[v];
+        int[] children = new int[childOffsets[n]];
+        int[] fill = Arrays.copyOf(childOffsets, n);
+        for (int v = 0; v < n; v++)
+            if (parent[v] >= 0)
+                children[fill[parent[v]]++] = v;
+        int v = root;
+        while (true)
+        {
+            int next = -1;
+            for (int i = childOffsets[v]; i < childOffsets[v + 1]; i++)
+            {
+                int c = children[i];
+                if (!hasLandmark[c] && (next < 0 || size[c] > size[next]))
+                    next = c;
+            }
+            if (next < 0)
+                break;
+            v = next;
+        }
+        if (hasLandmark[v]) //every subtree has a landmark already, fall back to the farthest node.
+            return farthest(root, dijkstra);
+        return v;
+    }
+
+    /**
+     * the ALT lower bound of the distance from v to t (0 if no landmark gives a bound)
+     * @param v dense index
+     * @param t dense index
+     * @return double
+     */
+    double estimate(int v, int t)
+    {
+        double best = 0.0;
+        for (int k = 0; k < landmarks.length; k++)
+        {
+            double[] f = from[k], b = to[k];
+            if (f[t] != Dijkstra.INFINITY && f[v] != Dijkstra.INFINITY) //d(L,t) <= d(L,v) + d(v,t)
+                best = Math.max(best, f[t] - f[v]);
+            if (b[v] != Dijkstra.INFINITY && b[t] != Dijkstra.INFINITY) //d(v,L) <= d(v,t) + d(t,L)
+                best = Math.max(best, b[v] - b[t]);
+        }
+        return best;
+    }
+
+    CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * the landmarks as dense indices
+     */
+    int[] landmarks() {
+        return landmarks.clone();
+    }
+}
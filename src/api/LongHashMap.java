@@ -0,0 +1,219 @@
+package api;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is an open addressing hash map from a primitive long key to an object.
+ * the keys are never boxed, so get/put/remove do not allocate (put only allocates when the table grows).
+ * collisions are solved with linear probing, and removed slots are marked with a tombstone until the next rehash.
+ */
+final class LongHashMap<V>
+{
+    private static final Object TOMBSTONE = new Object(); //marks a removed slot, null marks a free slot.
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size; //amount of live entries
+    private int used; //live entries + tombstones
+    private int mask;
+
+    LongHashMap() {
+        this(0);
+    }
+
+    LongHashMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * This function return the table capacity (power of 2) that keeps a given amount of entries under half load
+     */
+    static int capacityFor(int expected)
+    {
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2L * expected && capacity < (1 << 30))
+            capacity <<= 1;
+        return capacity;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        used = size;
+    }
+
+    private static int hash(long key)
+    {//spread the bits so sequential ids do not cluster.
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * get the value of a key
+     * @param key the key
+     * @return the value, null if none
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key)
+    {
+        int i = hash(key) & mask;
+        Object v;
+        while ((v = values[i]) != null)
+        {
+            if (v != TOMBSTONE && keys[i] == key)
+                return (V) v;
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * put a (non null) value for a key
+     * @return the previous value, null if none
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value)
+    {
+        int i = hash(key) & mask;
+        int tombstone = -1;
+        Object v;
+        while ((v = values[i]) != null)
+        {
+            if (v == TOMBSTONE)
+            {
+                if (tombstone < 0)
+                    tombstone = i;
+            }
+            else if (keys[i] == key)
+            {
+                values[i] = value;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        if (tombstone >= 0) //reuse the first removed slot on the probe path.
+            i = tombstone;
+        else
+            used++;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (used > (mask + 1) - ((mask + 1) >> 2)) //more than 3/4 of the slots are not free.
+            rehash(capacityFor(size));
+        return null;
+    }
+
+    /**
+     * remove a key
+     * @return the removed value, null if none
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key)
+    {
+        int i = hash(key) & mask;
+        Object v;
+        while ((v = values[i]) != null)
+        {
+            if (v != TOMBSTONE && keys[i] == key)
+            {
+                values[i] = TOMBSTONE;
+                size--;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * make room for a given amount of entries so adding them will not rehash more than once
+     * @param expected total amount of entries
+     */
+    void ensureCapacity(int expected)
+    {
+        if (capacityFor(expected) > mask + 1)
+            rehash(capacityFor(expected));
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldValues.length; j++)
+        {
+            Object v = oldValues[j];
+            if (v == null || v == TOMBSTONE)
+                continue;
+            int i = hash(oldKeys[j]) & mask;
+            while (values[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = v;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear()
+    {
+        size = 0;
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * iterator over the values, its remove() removes the last returned entry
+     */
+    Iterator<V> values() {
+        return new ValueIterator();
+    }
+
+    private class ValueIterator implements Iterator<V>
+    {
+        private final Object[] slots = values; //a rehash replaces the arrays, so the iterator keeps its own reference.
+        private int next = advance(0);
+        private int last = -1;
+
+        private int advance(int i)
+        {
+            while (i < slots.length && (slots[i] == null || slots[i] == TOMBSTONE))
+                i++;
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < slots.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next()
+        {
+            if (next >= slots.length)
+                throw new NoSuchElementException();
+            last = next;
+            next = advance(next + 1);
+            return (V) slots[last];
+        }
+
+        @Override
+        public void remove()
+        {
+            if (last < 0 || slots != values || slots[last] == TOMBSTONE)
+                throw new IllegalStateException();
+            slots[last] = TOMBSTONE;
+            size--;
+        }
+    }
+}
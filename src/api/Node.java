@@ -2,11 +2,18 @@ package api;
 
 /**
  * This class implements NodeData interface
+ * a node that is in a graph is a view: its coordinates are kept by the graph in contiguous arrays
+ * (look up Graph), and only a node that is not in a graph keeps its own Location.
+ * the Location of a node in a graph is made once and reads the graph arrays, so getLocation does not allocate
+ * and the location follows setLocation. it keeps the last coordinates when the node is removed.
  */
 public class Node
 {
     private final int id;
-    private Location location;
+    private Location location; //the location of a node that is not in a graph
+    private Graph graph; //the graph that keeps the coordinates, null if none
+    private int slot; //the index of the coordinates in the graph arrays
+    private Location view; //the location of a node in a graph, a view of the graph arrays
 
 
     public Node(int id, double x, double y, double z)
@@ -15,6 +22,40 @@ public class Node
         location = new Location(x, y, z);
     }
 
+    Node(int id, Graph graph, int slot)
+    {
+        this.id = id;
+        this.graph = graph;
+        this.slot = slot;
+        view = new View(this);
+    }
+
+    private static final class View extends Location
+    {//reads the coordinates of the node every time, from the graph or from the copy after the node left it.
+        private final Node node;
+
+        View(Node node)
+        {
+            super(0, 0, 0);
+            this.node = node;
+        }
+
+        @Override
+        public double x() {
+            return node.x();
+        }
+
+        @Override
+        public double y() {
+            return node.y();
+        }
+
+        @Override
+        public double z() {
+            return node.z();
+        }
+    }
+
     /**
      * get the key(=id) of the node
      * @return int
@@ -28,13 +69,52 @@ public class Node
      * @return Location
      */
     public Location getLocation() {
-        return location;
+        return view != null ? view : location;
+    }
+
+    /**
+     * getters for the coordinates, without a Location
+     * @return double
+     */
+    double x() {
+        return graph == null ? location.x() : graph.x(slot);
+    }
+
+    double y() {
+        return graph == null ? location.y() : graph.y(slot);
+    }
+
+    double z() {
+        return graph == null ? location.z() : graph.z(slot);
     }
 
     /**
      * set the location of the current node
      */
-    public void setLocation(Location p) {
-        location = new Location(p.x(), p.y(), p.z());
+    public void setLocation(Location p)
+    {
+        if (graph == null)
+            location = new Location(p.x(), p.y(), p.z());
+        else
+            graph.setLocation(slot, p);
+    }
+
+    /**
+     * get the index of the node coordinates in the graph arrays
+     * @return int, -1 if the node is not in a graph
+     */
+    int slot() {
+        return graph == null ? -1 : slot;
+    }
+
+    /**
+     * keep a copy of the coordinates when the node leaves its graph
+     */
+    void detach()
+    {
+        if (graph == null)
+            return;
+        location = graph.location(slot);
+        graph = null;
     }
 }
@@ -0,0 +1,30 @@
+package api;
+
+/**
+ * This interface is the priority queue of node indices used by the Dijkstra searches (look up QueueType).
+ * a queue may be lazy: decreaseKey can leave the old entry in the queue, so pollMin can return a node again
+ * with an old key. the search compares minKey() with the node distance and skips such entries.
+ */
+interface NodeQueue
+{
+    /**
+     * empty the queue before a search on a graph, and make room for its node indices
+     */
+    void reset(CsrGraph g);
+
+    boolean isEmpty();
+
+    void insert(int v, double key);
+
+    /**
+     * lower the key of a node that was inserted and not polled yet
+     */
+    void decreaseKey(int v, double key);
+
+    /**
+     * the key of the entry the next pollMin() returns
+     */
+    double minKey();
+
+    int pollMin();
+}
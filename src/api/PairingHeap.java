@@ -0,0 +1,119 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class is a pairing heap of node indices with double keys. the tree is kept in arrays by node index
+ * (first child, next sibling and previous link), so insert, meld and decrease-key only change a few links
+ * and nothing is allocated.
+ */
+final class PairingHeap implements NodeQueue
+{
+    private double[] key = new double[0];
+    private int[] child = new int[0]; //first child, -1 if none
+    private int[] next = new int[0]; //next sibling, -1 if none
+    private int[] prev = new int[0]; //the parent for a first child, else the previous sibling. -1 for the root
+    private int[] pairs = new int[16]; //scratch for the two pass merge
+    private int root = -1;
+
+    @Override
+    public void reset(CsrGraph g)
+    {
+        int n = g.nodeSize();
+        if (key.length < n)
+        {
+            int size = Math.max(n, key.length * 2);
+            key = Arrays.copyOf(key, size);
+            child = Arrays.copyOf(child, size);
+            next = Arrays.copyOf(next, size);
+            prev = Arrays.copyOf(prev, size);
+        }
+        root = -1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root < 0;
+    }
+
+    @Override
+    public void insert(int v, double k)
+    {
+        key[v] = k;
+        child[v] = next[v] = prev[v] = -1;
+        root = root < 0 ? v : meld(root, v);
+    }
+
+    @Override
+    public void decreaseKey(int v, double k)
+    {
+        key[v] = k;
+        if (v == root)
+            return;
+        int p = prev[v]; //cut the sub tree of v and meld it with the root.
+        if (child[p] == v)
+            child[p] = next[v];
+        else
+            next[p] = next[v];
+        if (next[v] >= 0)
+            prev[next[v]] = p;
+        next[v] = prev[v] = -1;
+        root = meld(root, v);
+    }
+
+    @Override
+    public double minKey() {
+        return key[root];
+    }
+
+    @Override
+    public int pollMin()
+    {
+        int v = root;
+        root = mergePairs(child[v]);
+        return v;
+    }
+
+    private int meld(int a, int b)
+    {//two roots (without siblings) become one tree, the one with the larger key is the new first child.
+        if (key[b] < key[a])
+        {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        next[b] = child[a];
+        if (child[a] >= 0)
+            prev[child[a]] = b;
+        prev[b] = a;
+        child[a] = b;
+        return a;
+    }
+
+    private int mergePairs(int first)
+    {// first pass: meld the children in pairs from left to right, second pass: meld the pairs from right to left.
+        int count = 0;
+        int c = first;
+        while (c >= 0)
+        {
+            int a = c;
+            int b = next[a];
+            c = b >= 0 ? next[b] : -1;
+            next[a] = prev[a] = -1;
+            if (b >= 0)
+            {
+                next[b] = prev[b] = -1;
+                a = meld(a, b);
+            }
+            if (count == pairs.length)
+                pairs = Arrays.copyOf(pairs, count * 2);
+            pairs[count++] = a;
+        }
+        if (count == 0)
+            return -1;
+        int r = pairs[count - 1];
+        for (int i = count - 2; i >= 0; i--)
+            r = meld(pairs[i], r);
+        return r;
+    }
+}
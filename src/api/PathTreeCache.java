@@ -0,0 +1,250 @@
+package api;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class keeps the shortest path trees of the recently used sources of one graph snapshot, the least recently
+ * used tree is dropped when there are more than the capacity. a tree of another snapshot is never returned:
+ * the cache starts over when it is asked about a new snapshot (the graph changed).
+ * it counts the hits, misses and evictions so the capacity can be tuned.
+ * a query (lookup) only builds a tree for a source that missed before, so a single query from a source keeps its
+ * point to point search and does not pay for a full one.
+ * the state of a snapshot is a few arrays by dense index, so a query does not box the source or allocate, and
+ * the hits and the misses do not take a lock: only putting a new tree in (a search already ran) is synchronized.
+ * under concurrent queries the order of use is approximate, a tree is always checked to be of the right source.
+ */
+final class PathTreeCache
+{
+    private volatile int capacity;
+    private volatile Generation current; //the trees of the current snapshot, null if the capacity is 0
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /**
+     * This class is the cache state of one snapshot: the trees in a fixed amount of slots, and the slot and the
+     * first miss of every source. the slots are changed only under the cache lock.
+     */
+    private static final class Generation
+    {
+        final CsrGraph graph;
+        final int[] slotOf; //dense index -> slot of its tree + 1, 0 if none
+        final boolean[] missed; //dense index -> missed once and has no tree
+        final ShortestPathTree[] trees; //slot -> tree, null if free
+        final long[] used; //slot -> the time of the last use
+        long clock;
+        int size;
+
+        Generation(CsrGraph graph, int capacity)
+        {
+            this.graph = graph;
+            slotOf = new int[graph.nodeSize()];
+            missed = new boolean[graph.nodeSize()];
+            trees = new ShortestPathTree[capacity];
+            used = new long[capacity];
+        }
+
+        ShortestPathTree get(int src)
+        {
+            int slot = slotOf[src] - 1;
+            if (slot < 0)
+                return null;
+            ShortestPathTree tree = trees[slot];
+            if (tree == null || tree.source() != src) //changed by another thread since the slot was read.
+                return null;
+            used[slot] = ++clock;
+            return tree;
+        }
+
+        /**
+         * put a tree in a free slot, or in the slot of the least recently used tree
+         * @return true if a tree was evicted
+         */
+        boolean put(ShortestPathTree tree)
+        {
+            int src = tree.source();
+            int slot = slotOf[src] - 1;
+            boolean evicted = false;
+            if (slot < 0)
+            {
+                slot = 0;
+                for (int i = 0; i < trees.length; i++)
+                {
+                    if (trees[i] == null)
+                    {
+                        slot = i;
+                        break;
+                    }
+                    if (used[i] < used[slot])
+                        slot = i;
+                }
+                if (trees[slot] != null)
+                {
+                    slotOf[trees[slot].source()] = 0;
+                    evicted = true;
+                }
+                else
+                    size++;
+            }
+            trees[slot] = tree;
+            used[slot] = ++clock;
+            slotOf[src] = slot + 1;
+            return evicted;
+        }
+
+        /**
+         * remove the least recently used tree
+         */
+        void evict()
+        {
+            int slot = -1;
+            for (int i = 0; i < trees.length; i++)
+                if (trees[i] != null && (slot < 0 || used[i] < used[slot]))
+                    slot = i;
+            slotOf[trees[slot].source()] = 0;
+            trees[slot] = null;
+            size--;
+        }
+    }
+
+    PathTreeCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * change the amount of trees kept (0 turns the cache off), the least recently used ones are evicted
+     */
+    synchronized void setCapacity(int capacity)
+    {
+        this.capacity = capacity;
+        Generation gen = current;
+        if (gen == null)
+            return;
+        while (gen.size > capacity)
+        {
+            gen.evict();
+            evictions.increment();
+        }
+        if (capacity == 0)
+        {
+            current = null;
+            return;
+        }
+        Generation resized = new Generation(gen.graph, capacity); //the kept trees in the same order of use
+        System.arraycopy(gen.missed, 0, resized.missed, 0, gen.missed.length);
+        for (long time = 0; resized.size < gen.size; )
+        {
+            int next = -1;
+            for (int i = 0; i < gen.trees.length; i++)
+                if (gen.trees[i] != null && gen.used[i] > time && (next < 0 || gen.used[i] < gen.used[next]))
+                    next = i;
+            time = gen.used[next];
+            resized.put(gen.trees[next]);
+        }
+        current = resized;
+    }
+
+    /**
+     * get the tree of a source for a query: a cached tree, or a new one if the source missed before
+     * @param g the current snapshot
+     * @param src dense index of the source
+     * @param dijkstra the workspace to search with on a second miss
+     * @return the tree, null on the first miss of the source (the caller should search point to point)
+     */
+    ShortestPathTree lookup(CsrGraph g, int src, Dijkstra dijkstra)
+    {
+        Generation gen = generation(g);
+        if (gen == null)
+            return null;
+        ShortestPathTree tree = gen.get(src);
+        if (tree != null)
+        {
+            hits.increment();
+            return tree;
+        }
+        misses.increment();
+        if (!gen.missed[src]) //the first miss: remember the source, no tree yet.
+        {
+            gen.missed[src] = true;
+            return null;
+        }
+        gen.missed[src] = false;
+        return build(gen, src, dijkstra);
+    }
+
+    /**
+     * get the tree of a source, search it on a miss
+     * @param g the current snapshot
+     * @param src dense index of the source
+     * @param dijkstra the workspace to search with on a miss
+     * @return the tree, null if the capacity is 0
+     */
+    ShortestPathTree get(CsrGraph g, int src, Dijkstra dijkstra)
+    {
+        Generation gen = generation(g);
+        if (gen == null)
+            return null;
+        ShortestPathTree tree = gen.get(src);
+        if (tree != null)
+        {
+            hits.increment();
+            return tree;
+        }
+        misses.increment();
+        return build(gen, src, dijkstra);
+    }
+
+    private Generation generation(CsrGraph g)
+    {//the state of the snapshot, a new one if the graph changed (all the trees are stale).
+        if (capacity == 0)
+            return null;
+        Generation gen = current;
+        if (gen != null && gen.graph == g)
+            return gen;
+        synchronized (this)
+        {
+            gen = current;
+            if (capacity > 0 && (gen == null || gen.graph != g))
+                current = gen = new Generation(g, capacity);
+            return capacity > 0 ? gen : null;
+        }
+    }
+
+    private ShortestPathTree build(Generation gen, int src, Dijkstra dijkstra)
+    {//the search runs outside the lock.
+        ShortestPathTree tree = new ShortestPathTree(gen.graph, src, dijkstra);
+        synchronized (this)
+        {
+            if (current == gen && gen.put(tree))
+                evictions.increment();
+        }
+        return tree;
+    }
+
+    /**
+     * drop all the trees
+     */
+    synchronized void clear() {
+        current = null;
+    }
+
+    int size()
+    {
+        Generation gen = current;
+        return gen == null ? 0 : gen.size;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,36 @@
+package api;
+
+/**
+ * The priority queue strategies the searches of Algo can use (look up Algo.setQueueType).
+ * all of them give the same distances, they differ only in speed.
+ */
+public enum QueueType
+{
+    /** binary heap with decrease-key */
+    BINARY_HEAP,
+    /** 4-ary heap with decrease-key, a shallower tree with cheaper pushes */
+    FOUR_ARY_HEAP,
+    /** pairing heap with o(1) insert and cheap decrease-key */
+    PAIRING_HEAP,
+    /** radix heap over the bits of the keys, it works because the popped keys never go down in Dijkstra */
+    RADIX_HEAP,
+    /** Dial's buckets of width (a bit less than) the lowest edge weight, a node popped from the lowest bucket is final */
+    DIAL;
+
+    NodeQueue create()
+    {
+        switch (this)
+        {
+            case FOUR_ARY_HEAP:
+                return new IndexedHeap(4);
+            case PAIRING_HEAP:
+                return new PairingHeap();
+            case RADIX_HEAP:
+                return new RadixHeap();
+            case DIAL:
+                return new DialQueue();
+            default:
+                return new IndexedHeap(2);
+        }
+    }
+}
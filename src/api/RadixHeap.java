@@ -0,0 +1,105 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class is a radix heap of node indices. it only works when a new key is never lower than the last
+ * popped key, which is true for Dijkstra. the bits of a non negative double are ordered like its value,
+ * so the keys are used as longs: bucket i holds the keys that first differ from the last popped key at bit i-1.
+ * decrease-key is lazy (a new entry is added, look up NodeQueue).
+ */
+final class RadixHeap implements NodeQueue
+{
+    private final int[][] nodes = new int[65][];
+    private final long[][] keys = new long[65][];
+    private final int[] sizes = new int[65];
+    private long last; //the last popped key
+    private int size;
+
+    RadixHeap()
+    {
+        for (int i = 0; i < 65; i++)
+        {
+            nodes[i] = new int[8];
+            keys[i] = new long[8];
+        }
+    }
+
+    @Override
+    public void reset(CsrGraph g)
+    {
+        Arrays.fill(sizes, 0);
+        last = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int bucket(long k) {
+        return k == last ? 0 : 64 - Long.numberOfLeadingZeros(k ^ last);
+    }
+
+    private void add(int b, int v, long k)
+    {
+        int s = sizes[b];
+        if (s == nodes[b].length)
+        {
+            nodes[b] = Arrays.copyOf(nodes[b], s * 2);
+            keys[b] = Arrays.copyOf(keys[b], s * 2);
+        }
+        nodes[b][s] = v;
+        keys[b][s] = k;
+        sizes[b] = s + 1;
+    }
+
+    @Override
+    public void insert(int v, double key)
+    {
+        long k = Double.doubleToRawLongBits(key + 0.0); //+0.0 turns -0.0 into 0.0
+        add(bucket(k), v, k);
+        size++;
+    }
+
+    @Override
+    public void decreaseKey(int v, double key) {
+        insert(v, key);
+    }
+
+    private void prepare()
+    {//make sure bucket 0 is not empty: take the lowest key of the first non empty bucket as the new last key,
+        // and spread that bucket into the lower buckets.
+        if (sizes[0] > 0)
+            return;
+        int i = 1;
+        while (sizes[i] == 0)
+            i++;
+        long min = Long.MAX_VALUE;
+        for (int j = 0; j < sizes[i]; j++)
+            min = Math.min(min, keys[i][j]);
+        last = min;
+        int count = sizes[i];
+        sizes[i] = 0;
+        int[] bucketNodes = nodes[i];
+        long[] bucketKeys = keys[i];
+        for (int j = 0; j < count; j++)
+            add(bucket(bucketKeys[j]), bucketNodes[j], bucketKeys[j]);
+    }
+
+    @Override
+    public double minKey()
+    {
+        prepare();
+        return Double.longBitsToDouble(keys[0][sizes[0] - 1]);
+    }
+
+    @Override
+    public int pollMin()
+    {
+        prepare();
+        size--;
+        return nodes[0][--sizes[0]];
+    }
+}
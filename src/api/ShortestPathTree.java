@@ -0,0 +1,78 @@
+package api;
+
+/**
+ * This class is the shortest path tree of one source in a graph snapshot: the distance and the predecessor
+ * of every node by dense index, copied out of a full Dijkstra search so it stays valid after the workspace is reused.
+ */
+final class ShortestPathTree
+{
+    private final CsrGraph graph;
+    private final int source;
+    private final double[] dist; //Dijkstra.INFINITY if not reachable
+    private final int[] pred; //-1 for the source or if not reachable
+
+    /**
+     * run a full search from a source and keep its tree
+     * @param graph the graph
+     * @param source dense index
+     * @param dijkstra the workspace to search with
+     */
+    ShortestPathTree(CsrGraph graph, int source, Dijkstra dijkstra)
+    {
+        this.graph = graph;
+        this.source = source;
+        int n = graph.nodeSize();
+        dist = new double[n];
+        pred = new int[n];
+        dijkstra.search(graph, source, -1);
+        for (int v = 0; v < n; v++)
+        {
+            dist[v] = dijkstra.distance(v);
+            pred[v] = dijkstra.predecessor(v);
+        }
+    }
+
+    CsrGraph getGraph() {
+        return graph;
+    }
+
+    int source() {
+        return source;
+    }
+
+    /**
+     * the distance from the source
+     * @param v dense index
+     * @return the distance, Dijkstra.INFINITY if not reachable
+     */
+    double distance(int v) {
+        return dist[v];
+    }
+
+    /**
+     * the node before a node on its path from the source
+     * @param v dense index
+     * @return dense index, -1 for the source or if not reachable
+     */
+    int predecessor(int v) {
+        return pred[v];
+    }
+
+    /**
+     * the path from the source to a node, as dense indices
+     * @param target dense index
+     * @return the path, null if the node is not reachable
+     */
+    int[] path(int target)
+    {
+        if (dist[target] == Dijkstra.INFINITY)
+            return null;
+        int length = 1;
+        for (int v = target; v != source; v = pred[v])
+            length++;
+        int[] path = new int[length];
+        for (int v = target, i = length - 1; i >= 0; v = pred[v], i--)
+            path[i] = v;
+        return path;
+    }
+}
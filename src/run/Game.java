@@ -11,6 +11,7 @@ public class Game
     private final ArrayList<Pokemon> pokemons;
     private final HashMap<Integer, Agent> agents;
     private Algo algo;
+    private EdgeIndex edgeIndex; //spatial index of the graph edges, for finding the pokemons edges
     private final Client client;
     private boolean stop_the_game;
 
@@ -47,8 +48,11 @@ public class Game
         return agents;
     }
 
-    public void setGraph(String jsonStr) {
+    public void setGraph(String jsonStr)
+    {
         this.algo = new Algo(jsonStr);
+        if (!algo.precomputeAllPairs()) //the graph does not change during a game, so all the distances are computed once (if it is not too big).
+            algo.buildContractionHierarchy(); //else a hierarchy makes every query two tiny searches.
     }
 
     public Client getClient() {
@@ -117,42 +121,56 @@ public class Game
      */
     public Edge findEdgeOfPokemon(Location pos, int type)
     {
-        Iterator<Edge> edgesIter = algo.getGraph().edgeIter();
-        while (edgesIter.hasNext()) //go over all the edges
-        {
-            Edge edge = edgesIter.next();
-            if((type < 0 && edge.getSrc() < edge.getDest()) || (type > 0 && edge.getSrc() > edge.getDest())) //if the type doesn't fit the edge then skip it.
-                continue;
+        if (edgeIndex == null || edgeIndex.getGraph() != algo.getGraph().snapshot()) //build the index once for every version of the graph.
+            edgeIndex = new EdgeIndex(algo.getGraph());
+        return edgeIndex.find(pos, type);
+    }
+
 
-            Location edgeSrc = algo.getGraph().getNode(edge.getSrc()).getLocation();
-            Location edgeDest = algo.getGraph().getNode(edge.getDest()).getLocation();
+    /**
+     * determine for a given pokemon the best agent to assign.
+     * @param pokemon pokemon object
+     * @return the selected agent
+     */
+    public Agent chooseAgent(Pokemon pokemon) {
+        return chooseAgent(0, costs(new Edge[]{pokemon.getEdge()}));
+    }
 
-            double distSrcDest = Math.sqrt(Math.pow((edgeSrc.x() - edgeDest.x()), 2) + Math.pow((edgeSrc.y() - edgeDest.y()), 2)); //distance from src to dest
-            double distSrcPok = Math.sqrt(Math.pow((edgeSrc.x() - pos.x()), 2) + Math.pow((edgeSrc.y() - pos.y()), 2)); // distance from src to the pokemon
-            double distDestPok = Math.sqrt(Math.pow((edgeDest.x() - pos.x()), 2) + Math.pow((edgeDest.y() - pos.y()), 2)); // distance from dest to the pokemon
 
-            if (Math.abs(distSrcDest - (distDestPok + distSrcPok)) < 0.000001)
-            {
-                return edge;
-            }
-        }
-        return null;
+    /**
+     * the cost from the src of every agent through each of the given edges, all in one call.
+     * @param edges the edges of the pokemons
+     * @return agent id -> the cost of every edge
+     */
+    private HashMap<Integer, double[]> costs(Edge[] edges)
+    {
+        int[] sources = new int[agents.size()];
+        int row = 0;
+        for (Agent agent: agents.values())
+            sources[row++] = agent.getSrc();
+        double[][] matrix = algo.distanceMatrix(sources, edges);
+        HashMap<Integer, double[]> costs = new HashMap<>();
+        row = 0;
+        for (Agent agent: agents.values())
+            costs.put(agent.getId(), matrix[row++]);
+        return costs;
     }
 
 
     /**
      * determine for a given pokemon the best agent to assign.
-     * @param pokemon pokemon object
+     * @param index the pokemon index in the costs
+     * @param costs agent id -> the cost from the agent src through the edge of every pokemon
      * @return the selected agent
      */
-    public Agent chooseAgent(Pokemon pokemon)
+    private Agent chooseAgent(int index, HashMap<Integer, double[]> costs)
     {
         Agent selectedAgent = null;
         double minTime = Integer.MAX_VALUE;
 
         for (Agent agent: agents.values()) // go over all the agents
         {
-            double weight = algo.shortestPathDist(agent.getSrc(), pokemon.getEdge().getSrc()) + pokemon.getEdge().getWeight();
+            double weight = costs.get(agent.getId())[index];
             double time = weight / agent.getSpeed(); //calculated time (distance/speed = time).
             if(time < minTime && time < agent.getTimeToNext())
             {
@@ -171,10 +189,15 @@ public class Game
      */
     public void planNext()
     {
+        Edge[] edges = new Edge[pokemons.size()];
+        for (int i = 0; i < edges.length; i++)
+            edges[i] = pokemons.get(i).getEdge();
+        HashMap<Integer, double[]> costs = costs(edges); //all the costs of the tick in one call.
 
-        for (Pokemon pokemon: pokemons)
+        for (int i = 0; i < pokemons.size(); i++)
         {
-            Agent agent = chooseAgent(pokemon);
+            Pokemon pokemon = pokemons.get(i);
+            Agent agent = chooseAgent(i, costs);
             if(agent == null)
                 continue;
 
@@ -184,8 +207,9 @@ public class Game
                 continue;
             }
 
-            LinkedList<Node> tempPath = algo.shortestPath(agent.getSrc(), pokemon.getEdge().getSrc());
-            agent.setDest(tempPath.get(1).getKey());
+            int next = algo.nextHop(agent.getSrc(), pokemon.getEdge().getSrc()); //only the first step of the path.
+            if (next >= 0)
+                agent.setDest(next);
         }
     }
 
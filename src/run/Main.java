@@ -1,5 +1,6 @@
 package run;
 import GUI.Frame;
+import api.CenterResult;
 import org.json.JSONObject;
 import java.io.IOException;
 
@@ -18,7 +19,13 @@ public class Main
 
         Game game = new Game(client); //new game
         game.setGraph(client.getGraph()); //set the graph
-        int firstNode = game.getAlgo().center().getKey(); //find the best starting node
+        // the best starting node, boundedCenter finds the same node as center() with fewer searches.
+        CenterResult center = game.getAlgo().boundedCenter();
+        int firstNode = 0;
+        if (center.getNode() != null)
+            firstNode = center.getNode().getKey();
+        else if (game.getAlgo().getGraph().nodeIter().hasNext()) //not connected, there is no center.
+            firstNode = game.getAlgo().getGraph().nodeIter().next().getKey();
         JSONObject info = new JSONObject(client.getInfo());
         JSONObject amountInfo = info.getJSONObject("GameServer");
         int amountAgent = amountInfo.getInt("agents");
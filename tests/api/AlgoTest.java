@@ -2,12 +2,15 @@ package api;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,4 +46,325 @@ class AlgoTest
         assert (test2.contains(algo.getGraph().getNode(0)) && test2.contains(algo.getGraph().getNode(5)));
     }
 
-}
\ No newline at end of file
+    @Test
+    void adjacency()
+    {
+        CsrGraph first = algo.adjacency();
+        algo.shortestPathDist(0, 5);
+        algo.center();
+        assertSame(algo.adjacency(), first);
+        algo.getGraph().getNode(0).setLocation(new Location(1, 1, 0)); //does not change MC
+        assertSame(algo.adjacency(), first);
+        algo.getGraph().removeEdge(0, 1);
+        assertNotSame(algo.adjacency(), first);
+        assertEquals(algo.adjacency().edgeSize(), first.edgeSize() - 1);
+    }
+
+    @Test
+    void queueType()
+    {
+        assertEquals(QueueType.BINARY_HEAP, algo.getQueueType());
+        double expected = algo.shortestPathDist(0, 5);
+        for (QueueType type : QueueType.values())
+        {
+            algo.setQueueType(type);
+            assertEquals(type, algo.getQueueType());
+            assertEquals(expected, algo.shortestPathDist(0, 5), 1e-9);
+            assertEquals(5, algo.shortestPath(0, 5).getLast().getKey());
+        }
+        assertThrows(IllegalArgumentException.class, () -> algo.setQueueType(null));
+    }
+
+    @Test
+    void allPairs()
+    {
+        double before = algo.shortestPathDist(0, 5);
+        List<Node> path = algo.shortestPath(0, 5);
+        assertTrue(algo.precomputeAllPairs());
+        assertEquals(before, algo.shortestPathDist(0, 5), 1e-9);
+        List<Node> tablePath = algo.shortestPath(0, 5);
+        assertEquals(path.size(), tablePath.size());
+        assertEquals(5, tablePath.get(tablePath.size() - 1).getKey());
+
+        algo.getGraph().connect(0, 5, 0.0004); //the table is stale, the functions search again.
+        assertEquals(0.0004, algo.shortestPathDist(0, 5), 1e-12);
+        assertEquals(2, algo.shortestPath(0, 5).size());
+
+        algo.setAllPairsLimit(5); //A0 has 11 nodes
+        assertFalse(algo.precomputeAllPairs());
+        assertEquals(0.0004, algo.shortestPathDist(0, 5), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> algo.setAllPairsLimit(-1));
+    }
+
+    @Test
+    void center()
+    {
+        Graph g = DijkstraTest.randomGraph(200, 1200, 12);
+        for (int i = 0; i < 200; i++) //a cycle makes it connected
+            g.connect(i * 3, (i + 1) % 200 * 3, 2);
+        Algo big = new Algo(g);
+        CsrGraph csr = big.adjacency();
+        int expected = 0; //sequential reference, ties to the lowest index
+        double lowest = Double.MAX_VALUE;
+        for (int i = 0; i < csr.nodeSize(); i++)
+        {
+            double max = 0;
+            for (double d : DijkstraTest.bellmanFord(csr, i))
+                max = Math.max(max, d);
+            if (max < lowest)
+            {
+                lowest = max;
+                expected = i;
+            }
+        }
+        assertEquals(csr.id(expected), big.center().getKey());
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try
+        {
+            assertEquals(csr.id(expected), big.center(pool).getKey());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        g.addNode(new Node(1000, 0, 0, 0)); //not connected
+        assertNull(big.center());
+        assertNull(new Algo(new Graph()).center());
+    }
+
+    @Test
+    void boundedCenter() throws IOException
+    {
+        for (String file : new String[]{"data/A0", "data/A1", "data/A2", "data/A3"})
+        {
+            Algo a = new Algo(Graph.load(Paths.get(file)));
+            CenterResult result = a.boundedCenter();
+            assertEquals(a.center().getKey(), result.getNode().getKey(), file);
+            assertTrue(result.getSearches() <= 2 * a.getGraph().nodeSize());
+        }
+        Graph g = DijkstraTest.randomGraph(300, 1500, 13);
+        for (int i = 0; i < 300; i++)
+            g.connect(i * 3, (i + 1) % 300 * 3, 2);
+        Algo big = new Algo(g);
+        CenterResult result = big.boundedCenter();
+        assertEquals(big.center().getKey(), result.getNode().getKey());
+        assertTrue(result.getSearches() < 2 * 300);
+
+        g.addNode(new Node(1000, 0, 0, 0)); //not connected
+        assertNull(big.boundedCenter().getNode());
+        g.connect(1000, 0, 1); //reaches all but is not reached
+        assertNull(big.boundedCenter().getNode());
+        assertNull(new Algo(new Graph()).boundedCenter().getNode());
+    }
+
+    @Test
+    void treeCache()
+    {
+        assertEquals(Algo.DEFAULT_TREE_CACHE_SIZE, algo.getTreeCacheSize());
+        double d = algo.shortestPathDist(0, 5); //the first miss searches point to point
+        assertEquals(d, algo.shortestPathDist(0, 5), 1e-9); //the second builds the tree
+        assertEquals(algo.shortestPath(0, 5).size(), algo.shortestPath(0, 5).size());
+        assertEquals(2, algo.getTreeCacheMisses());
+        assertEquals(2, algo.getTreeCacheHits());
+        algo.getGraph().connect(0, 5, 0.0004); //a new snapshot, the tree is searched again
+        assertEquals(0.0004, algo.shortestPathDist(0, 5), 1e-12);
+        assertEquals(0.0004, algo.shortestPathDist(0, 5), 1e-12);
+        assertEquals(4, algo.getTreeCacheMisses());
+        algo.setTreeCacheSize(1);
+        algo.shortestPathDist(1, 5);
+        assertEquals(0, algo.getTreeCacheEvictions());
+        algo.shortestPathDist(1, 5);
+        assertEquals(1, algo.getTreeCacheEvictions());
+        algo.setTreeCacheSize(0);
+        assertEquals(0.0004, algo.shortestPathDist(0, 5), 1e-12);
+        assertEquals(6, algo.getTreeCacheMisses());
+    }
+
+    @Test
+    void aStar()
+    {
+        for (int src = 0; src < 11; src++)
+            for (int dest = 0; dest < 11; dest++)
+            {
+                assertEquals(algo.shortestPathDist(src, dest), algo.shortestPathDistAStar(src, dest), 1e-9);
+                assertEquals(algo.shortestPath(src, dest).size(), algo.shortestPathAStar(src, dest).size());
+            }
+        assertEquals(Double.MAX_VALUE, algo.shortestPathDistAStar(0, 100));
+        assertNull(algo.shortestPathAStar(0, 100));
+    }
+
+    @Test
+    void bidirectional()
+    {
+        double[][] expected = new double[11][11];
+        int[][] sizes = new int[11][11];
+        Dijkstra dijkstra = new Dijkstra();
+        CsrGraph csr = algo.getGraph().snapshot();
+        for (int src = 0; src < 11; src++)
+        {
+            dijkstra.search(csr, csr.indexOf(src), -1);
+            for (int dest = 0; dest < 11; dest++)
+            {
+                expected[src][dest] = dijkstra.distance(csr.indexOf(dest));
+                int[] path = dijkstra.path(csr.indexOf(dest));
+                sizes[src][dest] = path.length;
+            }
+        }
+        for (int src = 0; src < 11; src++) //the default settings: the first query of every source is bidirectional
+        {
+            int dest = (src + 4) % 11;
+            assertEquals(expected[src][dest], algo.shortestPathDist(src, dest), 1e-9);
+            assertTrue(algo.bidirectional().settledCount() > 0);
+        }
+        assertEquals(0, algo.getTreeCacheHits());
+        assertEquals(11, algo.getTreeCacheMisses()); //no tree was built
+
+        algo.setTreeCacheSize(0); //point to point searches only
+        for (int src = 0; src < 11; src++)
+            for (int dest = 0; dest < 11; dest++)
+            {
+                assertEquals(expected[src][dest], algo.shortestPathDist(src, dest), 1e-9);
+                List<Node> path = algo.shortestPath(src, dest);
+                assertEquals(sizes[src][dest], path.size());
+                assertEquals(src, path.get(0).getKey());
+                assertEquals(dest, path.get(path.size() - 1).getKey());
+            }
+    }
+
+    @Test
+    void contractionHierarchy(@TempDir Path dir) throws IOException
+    {
+        double expected = algo.shortestPathDist(0, 5);
+        int size = algo.shortestPath(0, 5).size();
+        ContractionHierarchy ch = algo.buildContractionHierarchy();
+        assertSame(ch, algo.buildContractionHierarchy());
+        assertEquals(expected, algo.shortestPathDist(0, 5), 1e-9);
+        assertEquals(size, algo.shortestPath(0, 5).size());
+        Path file = dir.resolve("A0.ch");
+        ch.write(file);
+
+        Algo other = new Algo(Graph.load(Paths.get("data/A0")));
+        other.loadContractionHierarchy(file);
+        assertEquals(expected, other.shortestPathDist(0, 5), 1e-9);
+        other.getGraph().connect(0, 5, 0.0004); //the hierarchy is stale
+        assertEquals(0.0004, other.shortestPathDist(0, 5), 1e-12);
+        assertThrows(IOException.class, () -> other.loadContractionHierarchy(file));
+    }
+
+    @Test
+    void landmarks()
+    {
+        double[][] expected = new double[11][11];
+        for (int src = 0; src < 11; src++)
+            for (int dest = 0; dest < 11; dest++)
+                expected[src][dest] = algo.shortestPathDist(src, dest);
+        int[] ids = algo.buildLandmarks(3, LandmarkSelection.FARTHEST);
+        assertEquals(3, ids.length);
+        for (int src = 0; src < 11; src++)
+            for (int dest = 0; dest < 11; dest++)
+            {
+                assertEquals(expected[src][dest], algo.shortestPathDist(src, dest), 1e-9);
+                List<Node> path = algo.shortestPath(src, dest);
+                assertEquals(dest, path.get(path.size() - 1).getKey());
+            }
+        assertEquals(11, algo.buildLandmarks(20, LandmarkSelection.AVOID).length); //at most one per node
+        assertThrows(IllegalArgumentException.class, () -> algo.buildLandmarks(0, LandmarkSelection.AVOID));
+    }
+
+    @Test
+    void shortestPathDists()
+    {
+        int[] dests = {0, 4, 10, 4, 99};
+        for (int round = 0; round < 3; round++)
+        {
+            if (round == 1)
+                algo.buildContractionHierarchy();
+            if (round == 2)
+                algo.precomputeAllPairs();
+            for (int src = 0; src < 11; src++)
+            {
+                double[] dists = algo.shortestPathDists(src, dests);
+                assertEquals(dests.length, dists.length);
+                for (int i = 0; i < dests.length; i++)
+                    assertEquals(algo.shortestPathDist(src, dests[i]), dists[i], 1e-9);
+            }
+        }
+        assertEquals(Double.MAX_VALUE, algo.shortestPathDists(99, dests)[0]);
+    }
+
+    @Test
+    void distanceMatrix()
+    {
+        int[] sources = {0, 3, 7, 98};
+        int[] dests = {1, 5, 10, 99};
+        double[][] matrix = algo.distanceMatrix(sources, dests);
+        assertEquals(4, matrix.length);
+        for (int i = 0; i < sources.length; i++)
+            for (int j = 0; j < dests.length; j++)
+                assertEquals(algo.shortestPathDist(sources[i], dests[j]), matrix[i][j], 1e-9);
+
+        Edge[] edges = {new Edge(1, 2, 1.5), new Edge(10, 0, 2.0)};
+        double[][] costs = algo.distanceMatrix(sources, edges);
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < edges.length; j++)
+                assertEquals(algo.shortestPathDist(sources[i], edges[j].getSrc()) + edges[j].getWeight(), costs[i][j], 1e-9);
+        assertEquals(Double.MAX_VALUE, costs[3][0]);
+    }
+
+    @Test
+    void pathIds()
+    {
+        for (int round = 0; round < 4; round++)
+        {
+            if (round == 1)
+                algo.setTreeCacheSize(0); //bidirectional
+            if (round == 2)
+                algo.buildContractionHierarchy();
+            if (round == 3)
+                algo.precomputeAllPairs();
+            for (int src = 0; src < 11; src++)
+                for (int dest = 0; dest < 11; dest++)
+                {
+                    List<Node> path = algo.shortestPath(src, dest);
+                    int[] ids = algo.shortestPathIds(src, dest);
+                    assertEquals(path.size(), ids.length);
+                    for (int i = 0; i < ids.length; i++)
+                        assertEquals(path.get(i).getKey(), ids[i]);
+                    assertEquals(src == dest ? -1 : ids[1], algo.nextHop(src, dest));
+                }
+        }
+        assertNull(algo.shortestPathIds(0, 99));
+        assertEquals(-1, algo.nextHop(0, 99));
+    }
+
+    @Test
+    void components()
+    {
+        assertEquals(1, algo.componentCount());
+        assertTrue(algo.isReachable(0, 10));
+        assertFalse(algo.isReachable(0, 99));
+
+        Graph g = new Graph();
+        for (int i = 0; i < 4; i++)
+            g.addNode(new Node(i, i, 0, 0));
+        g.connect(0, 1, 1);
+        g.connect(1, 0, 1);
+        g.connect(1, 2, 1);
+        g.connect(2, 3, 1);
+        g.connect(3, 2, 1);
+        Algo two = new Algo(g);
+        assertEquals(2, two.componentCount());
+        assertTrue(two.isReachable(0, 3));
+        assertFalse(two.isReachable(3, 0));
+        assertEquals(Double.MAX_VALUE, two.shortestPathDist(3, 0));
+        assertNull(two.shortestPath(2, 1));
+        assertEquals(-1, two.nextHop(2, 1));
+        assertArrayEquals(new double[] {Double.MAX_VALUE, 0, 1}, two.shortestPathDists(2, new int[] {0, 2, 3}));
+        assertNull(two.center());
+        assertEquals(0, two.boundedCenter().getSearches());
+        g.connect(2, 1, 1);
+        assertEquals(1, two.componentCount()); //found again for the new version
+        assertEquals(1.0, two.shortestPathDist(2, 1));
+        assertNotNull(two.center());
+    }
+}
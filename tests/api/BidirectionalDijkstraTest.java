@@ -0,0 +1,71 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidirectionalDijkstraTest
+{
+    @Test
+    void distances()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(200, 700, 18).snapshot();
+        for (QueueType type : QueueType.values())
+        {
+            BidirectionalDijkstra search = new BidirectionalDijkstra(type);
+            for (int src = 0; src < g.nodeSize(); src += 23)
+            {
+                double[] expected = DijkstraTest.bellmanFord(g, src);
+                for (int t = 0; t < g.nodeSize(); t += 3)
+                {
+                    double d = search.search(g, src, t);
+                    assertEquals(expected[t], d, 1e-9, type.toString());
+                    int[] path = search.path();
+                    if (d == Dijkstra.INFINITY)
+                    {
+                        assertNull(path);
+                        continue;
+                    }
+                    assertEquals(src, path[0]);
+                    assertEquals(t, path[path.length - 1]);
+                    double sum = 0;
+                    for (int i = 0; i + 1 < path.length; i++)
+                    {
+                        double w = Double.MAX_VALUE;
+                        for (int e = g.outStart(path[i]); e < g.outEnd(path[i]); e++)
+                            if (g.target(e) == path[i + 1])
+                                w = Math.min(w, g.weight(e));
+                        sum += w;
+                    }
+                    assertEquals(d, sum, 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void searchSpace()
+    {
+        CsrGraph grid = DijkstraTest.gridGraph(40).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        BidirectionalDijkstra search = new BidirectionalDijkstra();
+        int oneSided = 0, twoSided = 0;
+        for (int src = 0; src < grid.nodeSize(); src += 97)
+            for (int t = 0; t < grid.nodeSize(); t += 89)
+            {
+                assertEquals(dijkstra.search(grid, src, t), search.search(grid, src, t), 1e-9);
+                oneSided += dijkstra.settledCount();
+                twoSided += search.settledCount();
+            }
+        assertTrue(twoSided < oneSided * 0.75, twoSided + " of " + oneSided);
+    }
+
+    @Test
+    void sameNode()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(10, 30, 19).snapshot();
+        BidirectionalDijkstra search = new BidirectionalDijkstra();
+        assertEquals(0.0, search.search(g, 4, 4));
+        assertArrayEquals(new int[]{4}, search.path());
+    }
+}
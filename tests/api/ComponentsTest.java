@@ -0,0 +1,68 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentsTest
+{
+    private static boolean[] reached(CsrGraph g, int src)
+    {//a breadth first search, the reference.
+        boolean[] seen = new boolean[g.nodeSize()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        seen[src] = true;
+        queue.add(src);
+        while (!queue.isEmpty())
+        {
+            int u = queue.poll();
+            for (int e = g.outStart(u); e < g.outEnd(u); e++)
+                if (!seen[g.target(e)])
+                {
+                    seen[g.target(e)] = true;
+                    queue.add(g.target(e));
+                }
+        }
+        return seen;
+    }
+
+    private static void check(CsrGraph g, int step)
+    {
+        Components scc = Components.build(g);
+        for (int src = 0; src < g.nodeSize(); src += step)
+        {
+            boolean[] seen = reached(g, src);
+            for (int v = 0; v < g.nodeSize(); v++)
+            {
+                assertEquals(seen[v], scc.reachable(src, v), src + " -> " + v);
+                if (seen[v] && reached(g, v)[src])
+                    assertEquals(scc.component(src), scc.component(v));
+                else
+                    assertNotEquals(scc.component(src), scc.component(v));
+            }
+        }
+        for (int c = 0; c < scc.count(); c++)
+            for (int d : scc.successors(c))
+                assertTrue(d < c, "the DAG edges go down");
+    }
+
+    @Test
+    void smallGraphs()
+    {
+        for (long seed = 0; seed < 5; seed++)
+            check(DijkstraTest.randomGraph(150, 150 + (int) seed * 60, seed).snapshot(), 1);
+        check(DijkstraTest.gridGraph(10).snapshot(), 7);
+        Components one = Components.build(DijkstraTest.gridGraph(10).snapshot());
+        assertEquals(1, one.count());
+        assertEquals(0, Components.build(new Graph().snapshot()).count());
+    }
+
+    @Test
+    void withoutClosure()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(6000, 6500, 9).snapshot(); //mostly single node components
+        assertTrue(Components.build(g).count() > Components.CLOSURE_LIMIT);
+        check(g, 577);
+    }
+}
@@ -0,0 +1,103 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyTest
+{
+    private static void check(CsrGraph g, ContractionHierarchy ch, int step)
+    {
+        for (int src = 0; src < g.nodeSize(); src += step)
+        {
+            double[] expected = DijkstraTest.bellmanFord(g, src);
+            for (int t = 0; t < g.nodeSize(); t++)
+            {
+                assertEquals(expected[t], ch.distance(src, t), 1e-9);
+                int[] path = ch.path(src, t);
+                if (expected[t] == Dijkstra.INFINITY)
+                {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(src, path[0]);
+                assertEquals(t, path[path.length - 1]);
+                double sum = 0;
+                for (int i = 0; i + 1 < path.length; i++)
+                {
+                    double w = Double.MAX_VALUE;
+                    for (int e = g.outStart(path[i]); e < g.outEnd(path[i]); e++)
+                        if (g.target(e) == path[i + 1])
+                            w = Math.min(w, g.weight(e));
+                    sum += w;
+                }
+                assertEquals(expected[t], sum, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void randomGraph()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(300, 1200, 20).snapshot();
+        ContractionHierarchy ch = ContractionHierarchy.build(g);
+        assertSame(g, ch.getGraph());
+        check(g, ch, 11);
+    }
+
+    @Test
+    void maps() throws IOException
+    {
+        for (String file : new String[]{"data/A0", "data/A1", "data/A2", "data/A3"})
+        {
+            CsrGraph g = Graph.load(Paths.get(file)).snapshot();
+            check(g, ContractionHierarchy.build(g), 1);
+        }
+    }
+
+    @Test
+    void grid()
+    {
+        Graph graph = DijkstraTest.gridGraph(30);
+        graph.connect(5, 5, 1); //a self loop
+        graph.connect(7, 8, 0); //a zero weight edge
+        CsrGraph g = graph.snapshot();
+        ContractionHierarchy ch = ContractionHierarchy.build(g);
+        assertTrue(ch.shortcutCount() > 0);
+        check(g, ch, 37);
+    }
+
+    @Test
+    void writeAndRead(@TempDir Path dir) throws IOException
+    {
+        Graph graph = DijkstraTest.randomGraph(200, 800, 21);
+        CsrGraph g = graph.snapshot();
+        ContractionHierarchy ch = ContractionHierarchy.build(g);
+        Path file = dir.resolve("map.ch");
+        ch.write(file);
+        CsrGraph again = DijkstraTest.randomGraph(200, 800, 21).snapshot(); //another run on the same map
+        ContractionHierarchy read = ContractionHierarchy.read(file, again);
+        assertSame(again, read.getGraph());
+        assertEquals(ch.shortcutCount(), read.shortcutCount());
+        for (int v = 0; v < g.nodeSize(); v++)
+            assertEquals(ch.rank(v), read.rank(v));
+        check(again, read, 13);
+
+        graph.connect(0, 3, 5);
+        assertThrows(IOException.class, () -> ContractionHierarchy.read(file, graph.snapshot()));
+        Path bad = dir.resolve("bad.ch");
+        Files.write(bad, Files.readAllBytes(Paths.get("data/A0")));
+        assertThrows(IOException.class, () -> ContractionHierarchy.read(bad, g));
+        Path cut = dir.resolve("cut.ch");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> ContractionHierarchy.read(cut, g));
+    }
+}
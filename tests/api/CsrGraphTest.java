@@ -0,0 +1,177 @@
+package api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsrGraphTest
+{
+    private static Graph graph;
+    private static CsrGraph csr;
+
+    @BeforeEach
+    void init() throws IOException
+    {
+        String file = "data/A0";
+        String json = new String(Files.readAllBytes(Paths.get(file)));
+        graph = new Graph(json);
+        csr = graph.freeze();
+    }
+
+    @Test
+    void sizes()
+    {
+        assertEquals(csr.nodeSize(), graph.nodeSize());
+        assertEquals(csr.edgeSize(), graph.edgeSize());
+        assertEquals(csr.getVersion(), graph.getMC());
+    }
+
+    @Test
+    void indexOf()
+    {
+        for (int i = 0; i < csr.nodeSize(); i++)
+        {
+            assertEquals(csr.indexOf(csr.id(i)), i);
+            assertEquals(csr.x(i), graph.getNode(csr.id(i)).getLocation().x());
+            assertEquals(csr.y(i), graph.getNode(csr.id(i)).getLocation().y());
+        }
+        assertEquals(csr.indexOf(500), -1);
+        assertEquals(csr.indexOf(-3), -1);
+    }
+
+    @Test
+    void outEdges()
+    {
+        Iterator<Edge> edgeIter = graph.edgeIter();
+        while (edgeIter.hasNext())
+        {
+            Edge edge = edgeIter.next();
+            int src = csr.indexOf(edge.getSrc());
+            boolean found = false;
+            for (int e = csr.outStart(src); e < csr.outEnd(src); e++)
+                if (csr.id(csr.target(e)) == edge.getDest() && csr.weight(e) == edge.getWeight())
+                    found = true;
+            assert (found);
+        }
+    }
+
+    @Test
+    void inEdges()
+    {
+        int count = 0;
+        for (int i = 0; i < csr.nodeSize(); i++)
+            for (int e = csr.inStart(i); e < csr.inEnd(i); e++)
+            {
+                Edge edge = graph.getEdge(csr.id(csr.source(e)), csr.id(i));
+                assertNotNull(edge);
+                assertEquals(edge.getWeight(), csr.inWeight(e));
+                count++;
+            }
+        assertEquals(count, graph.edgeSize());
+    }
+
+    @Test
+    void immutable()
+    {
+        graph.connect(0, 5, 0.5);
+        assertEquals(csr.edgeSize(), graph.edgeSize() - 1);
+        assertEquals(graph.freeze().edgeSize(), graph.edgeSize());
+    }
+
+    @Test
+    void detachedNodes()
+    {
+        int v = csr.indexOf(3);
+        double x = csr.x(v);
+        Node node = csr.node(v);
+        assertNotSame(graph.getNode(3), node);
+        graph.getNode(3).setLocation(new Location(x + 7, 0, 0));
+        assertEquals(x, node.getLocation().x()); //the snapshot does not see later changes
+        node.setLocation(new Location(x - 7, 0, 0));
+        assertEquals(x + 7, graph.getNode(3).getLocation().x()); //and does not change the graph
+        assertEquals(x, csr.x(v));
+    }
+
+    @Test
+    void writeAndMap(@TempDir Path dir) throws IOException
+    {
+        Path file = dir.resolve("A0.bin");
+        csr.write(file);
+        CsrGraph mapped = CsrGraph.map(file);
+        assertEquals(mapped.nodeSize(), csr.nodeSize());
+        assertEquals(mapped.edgeSize(), csr.edgeSize());
+        assertEquals(mapped.getVersion(), csr.getVersion());
+        for (int i = 0; i < csr.nodeSize(); i++)
+        {
+            assertEquals(mapped.id(i), csr.id(i));
+            assertEquals(mapped.x(i), csr.x(i));
+            assertEquals(mapped.outStart(i), csr.outStart(i));
+            assertEquals(mapped.inStart(i), csr.inStart(i));
+        }
+        for (int e = 0; e < csr.edgeSize(); e++)
+        {
+            assertEquals(mapped.target(e), csr.target(e));
+            assertEquals(mapped.weight(e), csr.weight(e));
+            assertEquals(mapped.source(e), csr.source(e));
+        }
+        Graph g = mapped.toGraph();
+        assertEquals(g.nodeSize(), graph.nodeSize());
+        assertEquals(g.getEdge(0, 1).getWeight(), graph.getEdge(0, 1).getWeight());
+    }
+
+    @Test
+    void mapBadFile(@TempDir Path dir) throws IOException
+    {
+        Path file = dir.resolve("bad.bin");
+        Files.write(file, Files.readAllBytes(Paths.get("data/A0")));
+        assertThrows(IOException.class, () -> CsrGraph.map(file));
+
+        Path good = dir.resolve("A0.bin");
+        csr.write(good);
+        int n = csr.nodeSize();
+        long outOffsets = ((24 + 4L * n + 7) & ~7L) + 24L * n; //after the ids and the x, y, z arrays
+        long outTargets = (outOffsets + 4L * (n + 1) + 7) & ~7L;
+        ByteBuffer unsorted = read(good);
+        int first = unsorted.getInt(24);
+        unsorted.putInt(24, unsorted.getInt(28)).putInt(28, first);
+        assertThrows(IOException.class, () -> CsrGraph.map(write(file, unsorted)));
+        ByteBuffer target = read(good);
+        target.putInt((int) outTargets, n);
+        assertThrows(IOException.class, () -> CsrGraph.map(write(file, target)));
+        ByteBuffer offsets = read(good);
+        offsets.putInt((int) outOffsets + 4, -1);
+        assertThrows(IOException.class, () -> CsrGraph.map(write(file, offsets)));
+        int m = csr.edgeSize();
+        long inOffsets = ((outTargets + 4L * m + 7) & ~7L) + 8L * m;
+        long inSources = (inOffsets + 4L * (n + 1) + 7) & ~7L;
+        long inWeights = (inSources + 4L * m + 7) & ~7L;
+        ByteBuffer source = read(good); //in range, but not the transpose of the out edges
+        source.putInt((int) inSources, (source.getInt((int) inSources) + 1) % n);
+        assertThrows(IOException.class, () -> CsrGraph.map(write(file, source)));
+        ByteBuffer weight = read(good);
+        weight.putDouble((int) inWeights, weight.getDouble((int) inWeights) + 1);
+        assertThrows(IOException.class, () -> CsrGraph.map(write(file, weight)));
+        ByteBuffer counts = read(good);
+        counts.putInt(8, -1);
+        assertThrows(IOException.class, () -> CsrGraph.map(write(file, counts)));
+        assertEquals(n, CsrGraph.map(write(file, read(good))).nodeSize());
+    }
+
+    private static ByteBuffer read(Path file) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static Path write(Path file, ByteBuffer bytes) throws IOException {
+        return Files.write(file, bytes.array());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,211 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DijkstraTest
+{
+    static Graph randomGraph(int n, int m, long seed)
+    {
+        Random r = new Random(seed);
+        Graph g = new Graph();
+        for (int i = 0; i < n; i++)
+            g.addNode(new Node(i * 3, r.nextDouble(), r.nextDouble(), 0));
+        for (int i = 0; i < m; i++)
+            g.connect(r.nextInt(n) * 3, r.nextInt(n) * 3, 1 + r.nextDouble());
+        return g;
+    }
+
+    static double[] bellmanFord(CsrGraph g, int src)
+    {//a slow but simple reference.
+        double[] dist = new double[g.nodeSize()];
+        Arrays.fill(dist, Dijkstra.INFINITY);
+        dist[src] = 0;
+        for (int round = 0; round < g.nodeSize(); round++)
+            for (int u = 0; u < g.nodeSize(); u++)
+                if (dist[u] != Dijkstra.INFINITY)
+                    for (int e = g.outStart(u); e < g.outEnd(u); e++)
+                        dist[g.target(e)] = Math.min(dist[g.target(e)], dist[u] + g.weight(e));
+        return dist;
+    }
+
+    @Test
+    void fullSearch()
+    {
+        CsrGraph g = randomGraph(200, 600, 5).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        for (int src = 0; src < g.nodeSize(); src += 17)
+        {
+            double[] expected = bellmanFord(g, src);
+            dijkstra.search(g, src, -1);
+            int reached = 0;
+            for (int v = 0; v < g.nodeSize(); v++)
+            {
+                assertEquals(expected[v], dijkstra.distance(v), 1e-9);
+                if (expected[v] != Dijkstra.INFINITY)
+                    reached++;
+            }
+            assertEquals(reached, dijkstra.settledCount());
+        }
+    }
+
+    @Test
+    void reuseWorkspace() throws IOException
+    {
+        CsrGraph small = Graph.load(Paths.get("data/A0")).snapshot();
+        CsrGraph big = randomGraph(300, 1500, 6).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        double[] expected = bellmanFord(small, 0);
+        for (int round = 0; round < 3; round++)
+        {
+            dijkstra.search(big, 0, -1);
+            for (int t = 0; t < small.nodeSize(); t++) //early stop at the target leaves nodes in the heap
+                assertEquals(expected[t], dijkstra.search(small, 0, t), 1e-9);
+        }
+    }
+
+    @Test
+    void path()
+    {
+        CsrGraph g = randomGraph(100, 400, 7).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        for (int t = 0; t < g.nodeSize(); t++)
+        {
+            double d = dijkstra.search(g, 0, t);
+            int[] path = dijkstra.path(t);
+            if (d == Dijkstra.INFINITY)
+            {
+                assertNull(path);
+                continue;
+            }
+            assertEquals(path[0], 0);
+            assertEquals(path[path.length - 1], t);
+            double sum = 0;
+            for (int i = 0; i + 1 < path.length; i++)
+            {
+                double w = Double.MAX_VALUE;
+                for (int e = g.outStart(path[i]); e < g.outEnd(path[i]); e++)
+                    if (g.target(e) == path[i + 1])
+                        w = Math.min(w, g.weight(e));
+                sum += w;
+            }
+            assertEquals(d, sum, 1e-9);
+        }
+    }
+
+    @Test
+    void queueTypes() throws IOException
+    {
+        Graph zero = randomGraph(150, 600, 8); //zero and equal weights, Dial falls back to a heap.
+        zero.connect(0, 3, 0);
+        zero.connect(3, 6, 0);
+        CsrGraph[] graphs = {randomGraph(300, 1200, 9).snapshot(), zero.snapshot(),
+                Graph.load(Paths.get("data/A0")).snapshot(), Graph.load(Paths.get("data/A3")).snapshot()};
+        for (QueueType type : QueueType.values())
+        {
+            Dijkstra dijkstra = new Dijkstra(type);
+            for (CsrGraph g : graphs)
+                for (int src = 0; src < g.nodeSize(); src += 13)
+                {
+                    double[] expected = bellmanFord(g, src);
+                    dijkstra.search(g, src, -1);
+                    int reached = 0;
+                    double max = 0;
+                    for (int v = 0; v < g.nodeSize(); v++)
+                    {
+                        assertEquals(expected[v], dijkstra.distance(v), 1e-9, type.toString());
+                        if (expected[v] != Dijkstra.INFINITY)
+                        {
+                            reached++;
+                            max = Math.max(max, expected[v]);
+                        }
+                    }
+                    assertEquals(reached, dijkstra.settledCount(), type.toString());
+                    assertEquals(max, dijkstra.maxSettled(), 1e-9, type.toString());
+                    int t = (src * 7 + 1) % g.nodeSize(); //early stop
+                    assertEquals(expected[t], dijkstra.search(g, src, t), 1e-9, type.toString());
+                }
+        }
+    }
+
+    static Graph gridGraph(int side)
+    {//a side x side grid, every edge weight is a bit more than its length.
+        Graph g = new Graph();
+        for (int i = 0; i < side * side; i++)
+            g.addNode(new Node(i, i % side, i / side, 0));
+        for (int i = 0; i < side * side; i++)
+        {
+            if (i % side + 1 < side)
+            {
+                g.connect(i, i + 1, 1.1);
+                g.connect(i + 1, i, 1.2);
+            }
+            if (i + side < side * side)
+            {
+                g.connect(i, i + side, 1.3);
+                g.connect(i + side, i, 1.0);
+            }
+        }
+        return g;
+    }
+
+    @Test
+    void aStar()
+    {
+        CsrGraph g = randomGraph(200, 800, 17).snapshot();
+        for (QueueType type : QueueType.values())
+        {
+            Dijkstra dijkstra = new Dijkstra(type);
+            for (int src = 0; src < g.nodeSize(); src += 19)
+            {
+                double[] expected = bellmanFord(g, src);
+                for (int t = 0; t < g.nodeSize(); t += 7)
+                {
+                    assertEquals(expected[t], dijkstra.searchAStar(g, src, t), 1e-9, type.toString());
+                    if (expected[t] != Dijkstra.INFINITY)
+                        assertEquals(t, dijkstra.path(t)[dijkstra.path(t).length - 1]);
+                }
+            }
+        }
+
+        CsrGraph grid = gridGraph(40).snapshot();
+        assertEquals(1.0, grid.heuristicScale(), 1e-9); //the lowest weight / length
+        Dijkstra dijkstra = new Dijkstra();
+        int src = grid.indexOf(40 * 20), t = grid.indexOf(40 * 20 + 35);
+        double expected = dijkstra.search(grid, src, t);
+        int plain = dijkstra.settledCount();
+        assertEquals(expected, dijkstra.searchAStar(grid, src, t), 1e-9);
+        assertTrue(dijkstra.settledCount() < plain / 2, dijkstra.settledCount() + " of " + plain);
+    }
+
+    @Test
+    void searchMany()
+    {
+        CsrGraph g = randomGraph(300, 900, 21).snapshot();
+        for (QueueType type : QueueType.values())
+        {
+            Dijkstra dijkstra = new Dijkstra(type);
+            for (int src = 0; src < g.nodeSize(); src += 37)
+            {
+                double[] expected = bellmanFord(g, src);
+                int[] targets = {src, (src + 5) % 300, (src + 80) % 300, (src + 80) % 300, (src + 211) % 300};
+                dijkstra.searchMany(g, src, targets);
+                for (int t : targets)
+                    assertEquals(expected[t], dijkstra.distance(t), 1e-9, type.toString());
+            }
+        }
+
+        CsrGraph grid = gridGraph(30).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        dijkstra.searchMany(grid, 0, new int[] {1, 30, 31});
+        assertTrue(dijkstra.settledCount() < 10, "stops when the targets are settled: " + dijkstra.settledCount());
+        dijkstra.searchMany(grid, 0, new int[0]);
+        assertEquals(0, dijkstra.settledCount());
+    }
+}
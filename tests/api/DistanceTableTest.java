@@ -0,0 +1,79 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceTableTest
+{
+    @Test
+    void distances()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(150, 500, 11).snapshot();
+        DistanceTable table = DistanceTable.build(g, Dijkstra::new);
+        assertSame(g, table.getGraph());
+        for (int src = 0; src < g.nodeSize(); src++)
+        {
+            double[] expected = DijkstraTest.bellmanFord(g, src);
+            for (int dest = 0; dest < g.nodeSize(); dest++)
+            {
+                assertEquals(expected[dest], table.distance(src, dest), 1e-9);
+                int[] path = table.path(src, dest);
+                if (expected[dest] == Dijkstra.INFINITY)
+                {
+                    assertNull(path);
+                    assertEquals(-1, table.nextHop(src, dest));
+                    continue;
+                }
+                assertEquals(src, path[0]);
+                assertEquals(dest, path[path.length - 1]);
+                assertEquals(src == dest ? -1 : path[1], table.nextHop(src, dest));
+                double sum = 0;
+                for (int i = 0; i + 1 < path.length; i++)
+                {
+                    double w = Double.MAX_VALUE;
+                    for (int e = g.outStart(path[i]); e < g.outEnd(path[i]); e++)
+                        if (g.target(e) == path[i + 1])
+                            w = Math.min(w, g.weight(e));
+                    sum += w;
+                }
+                assertEquals(expected[dest], sum, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void zeroWeightCycle()
+    {// 0 and 4 are a zero weight cycle with two paths of the same distance to 2, the hops of their rows loop.
+        Graph graph = new Graph();
+        for (int i = 0; i < 6; i++)
+            graph.addNode(new Node(i, i, 0, 0));
+        int[][] edges = {{0, 4, 0}, {4, 0, 0}, {0, 3, 1}, {0, 1, 1}, {3, 1, 1}, {3, 2, 1}, {4, 5, 1}, {4, 1, 0},
+                {5, 2, 1}, {2, 1, 0}};
+        for (int[] e : edges)
+            graph.connect(e[0], e[1], e[2]);
+        CsrGraph g = graph.snapshot();
+        DistanceTable table = DistanceTable.build(g, Dijkstra::new);
+        for (int src = 0; src < g.nodeSize(); src++)
+        {
+            double[] expected = DijkstraTest.bellmanFord(g, src);
+            for (int dest = 0; dest < g.nodeSize(); dest++)
+            {
+                assertEquals(expected[dest], table.distance(src, dest), 1e-9);
+                int[] path = table.path(src, dest);
+                if (expected[dest] == Dijkstra.INFINITY)
+                {
+                    assertNull(path);
+                    continue;
+                }
+                assertNotNull(path, src + " -> " + dest);
+                assertEquals(src, path[0]);
+                assertEquals(dest, path[path.length - 1]);
+                double sum = 0;
+                for (int i = 0; i + 1 < path.length; i++)
+                    sum += graph.getEdge(g.id(path[i]), g.id(path[i + 1])).getWeight();
+                assertEquals(expected[dest], sum, 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamicShortestPathsTest
+{
+    private static void check(Graph g, DynamicShortestPaths trees, int[] sources)
+    {//compare every kept tree with a search from scratch, and walk its paths.
+        CsrGraph csr = g.snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        for (int src : sources)
+        {
+            if (!trees.hasSource(src))
+                continue;
+            dijkstra.search(csr, csr.indexOf(src), -1);
+            for (int v = 0; v < csr.nodeSize(); v++)
+            {
+                int dest = csr.id(v);
+                assertEquals(dijkstra.distance(v), trees.distance(src, dest), 1e-9, src + " -> " + dest);
+                int[] path = trees.path(src, dest);
+                if (dijkstra.distance(v) == Dijkstra.INFINITY)
+                {
+                    assertNull(path);
+                    continue;
+                }
+                double length = 0;
+                for (int i = 1; i < path.length; i++)
+                    length += g.getEdge(path[i - 1], path[i]).getWeight();
+                assertEquals(dijkstra.distance(v), length, 1e-9);
+                assertEquals(src, path[0]);
+                assertEquals(dest, path[path.length - 1]);
+                assertEquals(path.length > 1 ? path[1] : -1, trees.nextHop(src, dest));
+            }
+        }
+    }
+
+    @Test
+    void randomChanges()
+    {
+        Graph g = DijkstraTest.randomGraph(120, 400, 23);
+        DynamicShortestPaths trees = new DynamicShortestPaths(g);
+        int[] sources = {0, 30, 150, 300};
+        for (int src : sources)
+            assertTrue(trees.addSource(src));
+        assertFalse(trees.addSource(1)); //not a node
+        check(g, trees, sources);
+        Random r = new Random(5);
+        int nextId = 1000;
+        for (int step = 0; step < 300; step++)
+        {
+            int src = r.nextInt(120) * 3, dest = r.nextInt(120) * 3;
+            if (g.getNode(src) == null || g.getNode(dest) == null)
+                continue;
+            switch (r.nextInt(6))
+            {
+                case 0:
+                case 1:
+                    g.connect(src, dest, 0.5 + r.nextDouble()); //new or changed weight
+                    break;
+                case 2:
+                case 3:
+                    Edge e = g.edgeIter(src).hasNext() ? g.edgeIter(src).next() : null;
+                    if (e != null)
+                        g.removeEdge(e.getSrc(), e.getDest());
+                    break;
+                case 4:
+                    if (src != 0) //removing a source drops its tree
+                        g.removeNode(src);
+                    break;
+                default:
+                    g.addNode(new Node(nextId, 0, 0, 0));
+                    g.connect(nextId, dest, 1);
+                    g.connect(src, nextId++, 0.25);
+            }
+            if (step % 10 == 0)
+                check(g, trees, sources);
+        }
+        check(g, trees, sources);
+        assertTrue(trees.hasSource(0));
+        trees.close();
+    }
+
+    @Test
+    void localRepairs()
+    {
+        Graph g = DijkstraTest.gridGraph(30);
+        DynamicShortestPaths trees = new DynamicShortestPaths(g);
+        trees.addSource(0);
+        long full = trees.getAffectedCount(); //the first search sets every node.
+        assertTrue(full >= 899);
+        g.removeEdge(29 * 30 + 28, 29 * 30 + 29); //an edge of the far corner
+        check(g, trees, new int[] {0});
+        assertTrue(trees.getAffectedCount() - full < 10, "repaired " + (trees.getAffectedCount() - full));
+        long before = trees.getAffectedCount();
+        g.connect(0, 29, 100); //heavier than the path it could replace
+        assertEquals(before, trees.getAffectedCount());
+        g.removeEdge(0, 29);
+        assertEquals(before, trees.getAffectedCount()); //not a tree edge
+        check(g, trees, new int[] {0});
+        assertThrows(IllegalArgumentException.class, () -> trees.distance(29, 0));
+    }
+
+    @Test
+    void connectBeforeNode()
+    {// connect does not check the dest, the edges are picked up when the node is added.
+        Graph g = DijkstraTest.gridGraph(10);
+        DynamicShortestPaths trees = new DynamicShortestPaths(g);
+        trees.addSource(0);
+        g.connect(0, 500, 0.5);
+        g.connect(1, 501, 2);
+        assertEquals(Dijkstra.INFINITY, trees.distance(0, 500));
+        g.addNode(new Node(500, 0, 0, 0));
+        g.connect(500, 99, 0.25); //a shortcut to the far corner, through the new node
+        check(g, trees, new int[] {0});
+        assertEquals(0.5, trees.distance(0, 500), 1e-9);
+        assertEquals(0.75, trees.distance(0, 99), 1e-9);
+        g.addNode(new Node(501, 0, 0, 0));
+        check(g, trees, new int[] {0});
+        assertArrayEquals(new int[] {0, 500, 99}, trees.path(0, 99));
+        trees.close();
+    }
+
+    @Test
+    void algo()
+    {
+        Graph g = DijkstraTest.randomGraph(60, 200, 31);
+        Algo algo = new Algo(g);
+        algo.maintainShortestPaths(0, 3);
+        for (int step = 0; step < 40; step++)
+        {
+            g.connect(step * 3 % 180, (step * 21 + 3) % 180, 0.1 * step);
+            if (step % 3 == 0)
+                g.removeEdge(step * 3 % 180, (step * 21 + 3) % 180);
+            CsrGraph csr = g.snapshot();
+            Dijkstra dijkstra = new Dijkstra();
+            dijkstra.search(csr, csr.indexOf(3), -1);
+            for (int v = 0; v < csr.nodeSize(); v++)
+            {
+                assertEquals(dijkstra.distance(v), algo.shortestPathDist(3, csr.id(v)), 1e-9);
+                if (dijkstra.distance(v) != Dijkstra.INFINITY && csr.id(v) != 3)
+                    assertEquals(csr.id(v), algo.shortestPath(3, csr.id(v)).getLast().getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeIndexTest
+{
+    private static Edge scan(CsrGraph csr, Location pos, int type)
+    {//the search over all the edges, in the order of the snapshot.
+        for (int src = 0; src < csr.nodeSize(); src++)
+            for (int e = csr.outStart(src); e < csr.outEnd(src); e++)
+            {
+                int dest = csr.target(e);
+                if ((type < 0 && csr.id(src) < csr.id(dest)) || (type > 0 && csr.id(src) > csr.id(dest)))
+                    continue;
+                double distSrcDest = Math.sqrt(Math.pow((csr.x(src) - csr.x(dest)), 2) + Math.pow((csr.y(src) - csr.y(dest)), 2));
+                double distSrcPok = Math.sqrt(Math.pow((csr.x(src) - pos.x()), 2) + Math.pow((csr.y(src) - pos.y()), 2));
+                double distDestPok = Math.sqrt(Math.pow((csr.x(dest) - pos.x()), 2) + Math.pow((csr.y(dest) - pos.y()), 2));
+                if (Math.abs(distSrcDest - (distDestPok + distSrcPok)) < 0.000001)
+                    return new Edge(csr.id(src), csr.id(dest), csr.weight(e));
+            }
+        return null;
+    }
+
+    @Test
+    void sameAsScan() throws IOException
+    {
+        Random r = new Random(3);
+        for (String file : new String[]{"data/A0", "data/A1", "data/A2", "data/A3"})
+        {
+            CsrGraph csr = Graph.load(Paths.get(file)).snapshot();
+            EdgeIndex index = new EdgeIndex(csr);
+            assertSame(index.getGraph(), csr);
+            for (int k = 0; k < 2000; k++)
+            {
+                int src = r.nextInt(csr.nodeSize());
+                if (csr.outEnd(src) == csr.outStart(src))
+                    continue;
+                int e = csr.outStart(src) + r.nextInt(csr.outEnd(src) - csr.outStart(src));
+                int dest = csr.target(e);
+                double t = k % 10 == 0 ? 0 : r.nextDouble();
+                double noise = k % 3 == 0 ? (r.nextDouble() - 0.5) * 0.0001 : 0;
+                Location pos = new Location(csr.x(src) + t * (csr.x(dest) - csr.x(src)) + noise,
+                        csr.y(src) + t * (csr.y(dest) - csr.y(src)), 0);
+                for (int type = -1; type <= 1; type++)
+                {
+                    Edge expected = scan(csr, pos, type);
+                    Edge found = index.find(pos, type);
+                    if (expected == null)
+                        assertNull(found);
+                    else
+                    {
+                        assertEquals(expected.getSrc(), found.getSrc());
+                        assertEquals(expected.getDest(), found.getDest());
+                        assertEquals(expected.getWeight(), found.getWeight());
+                    }
+                }
+            }
+            assertNull(index.find(new Location(0, 0, 0), 1));
+        }
+    }
+
+    @Test
+    void graphEdges() throws IOException
+    {
+        Graph graph = Graph.load(Paths.get("data/A1"));
+        EdgeIndex index = new EdgeIndex(graph);
+        CsrGraph csr = index.getGraph();
+        assertSame(graph.snapshot(), csr);
+        for (int src = 0; src < csr.nodeSize(); src++)
+            for (int e = csr.outStart(src); e < csr.outEnd(src); e++)
+            {
+                int dest = csr.target(e);
+                Location pos = new Location((csr.x(src) + csr.x(dest)) / 2, (csr.y(src) + csr.y(dest)) / 2, 0);
+                int type = csr.id(src) < csr.id(dest) ? 1 : -1;
+                Edge found = index.find(pos, type);
+                assertSame(graph.getEdge(found.getSrc(), found.getDest()), found); //no new object per lookup
+                assertSame(found, index.find(pos, type));
+            }
+        EdgeIndex plain = new EdgeIndex(csr);
+        Location pos = new Location((csr.x(0) + csr.x(csr.target(0))) / 2, (csr.y(0) + csr.y(csr.target(0))) / 2, 0);
+        assertSame(plain.find(pos, 0), plain.find(pos, 0));
+    }
+}
@@ -0,0 +1,79 @@
+package api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphListenerTest
+{
+    private static Graph graph;
+
+    private static class Recorder implements GraphListener
+    {
+        final ArrayList<String> events = new ArrayList<>();
+
+        public void nodeAdded(Node node) { events.add("+n" + node.getKey()); }
+        public void nodeReplaced(Node oldNode, Node newNode) { events.add("~n" + newNode.getKey()); }
+        public void nodeRemoved(Node node) { events.add("-n" + node.getKey()); }
+        public void edgeAdded(Edge edge) { events.add("+e" + edge.getSrc() + "," + edge.getDest()); }
+        public void edgeWeightChanged(Edge oldEdge, Edge newEdge) { events.add("~e" + newEdge.getSrc() + "," + newEdge.getDest() + ":" + oldEdge.getWeight() + ">" + newEdge.getWeight()); }
+        public void edgeRemoved(Edge edge) { events.add("-e" + edge.getSrc() + "," + edge.getDest()); }
+    }
+
+    @BeforeEach
+    void init() throws IOException
+    {
+        graph = Graph.load(Paths.get("data/A0"));
+    }
+
+    @Test
+    void immediate()
+    {
+        Recorder r = new Recorder();
+        graph.addListener(r);
+        graph.addNode(new Node(20, 1, 1, 0));
+        graph.connect(20, 0, 1.5);
+        graph.connect(20, 0, 2.5);
+        graph.removeEdge(20, 0);
+        graph.removeEdge(20, 0);
+        graph.connect(0, 20, 1.0);
+        graph.removeNode(20);
+        assertEquals(r.events.toString(), "[+n20, +e20,0, ~e20,0:1.5>2.5, -e20,0, +e0,20, -e0,20, -n20]");
+        graph.removeListener(r);
+        graph.addNode(new Node(21, 1, 1, 0));
+        assertEquals(r.events.size(), 7);
+    }
+
+    @Test
+    void coalesced()
+    {
+        Recorder immediate = new Recorder();
+        Recorder coalesced = new Recorder();
+        graph.addListener(immediate);
+        graph.addListener(coalesced, true);
+        double w = graph.getEdge(1, 2).getWeight();
+        try (Graph.Batch batch = graph.batch())
+        {
+            batch.addNode(new Node(20, 1, 1, 0));
+            batch.connect(20, 0, 1.5);
+            batch.connect(20, 0, 2.5);
+            batch.connect(0, 20, 1.0);
+            batch.removeEdge(0, 20);
+            batch.connect(1, 2, 7.0);
+            batch.removeEdge(0, 1);
+            batch.addNode(new Node(21, 1, 1, 0));
+            batch.removeNode(21);
+            assertEquals(coalesced.events.size(), 0);
+        }
+        assertEquals(immediate.events.size(), 9);
+        assertEquals(coalesced.events.toString(), "[+n20, -e0,1, +e20,0, ~e1,2:" + w + ">7.0]");
+        coalesced.events.clear();
+        graph.connect(1, 2, 8.0); //outside a batch the change is reported at once
+        assertEquals(coalesced.events.toString(), "[~e1,2:7.0>8.0]");
+    }
+}
@@ -0,0 +1,101 @@
+package api;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphReaderTest
+{
+    @Test
+    void sameAsJsonObject() throws IOException
+    {
+        for (String file : new String[]{"data/A0", "data/A1", "data/A2", "data/A3"})
+        {
+            Graph graph = Graph.load(Paths.get(file));
+            JSONObject j = new JSONObject(new String(Files.readAllBytes(Paths.get(file))));
+            JSONArray jNodes = j.getJSONArray("Nodes");
+            JSONArray jEdges = j.getJSONArray("Edges");
+            assertEquals(graph.nodeSize(), jNodes.length());
+            assertEquals(graph.edgeSize(), jEdges.length());
+            assertEquals(graph.getMC(), 0);
+            for (int i = 0; i < jNodes.length(); i++)
+            {
+                String[] pos = jNodes.getJSONObject(i).getString("pos").split(",");
+                Location loc = graph.getNode(jNodes.getJSONObject(i).getInt("id")).getLocation();
+                assertEquals(loc.x(), Double.parseDouble(pos[0]));
+                assertEquals(loc.y(), Double.parseDouble(pos[1]));
+                assertEquals(loc.z(), Double.parseDouble(pos[2]));
+            }
+            for (int i = 0; i < jEdges.length(); i++)
+            {
+                JSONObject e = jEdges.getJSONObject(i);
+                assertEquals(graph.getEdge(e.getInt("src"), e.getInt("dest")).getWeight(), e.getDouble("w"));
+            }
+        }
+    }
+
+    @Test
+    void parseWithoutString() throws IOException
+    {// every number of the maps (16 and 17 digits) and random doubles, bit for bit as Double.parseDouble.
+        Pattern number = Pattern.compile("-?[0-9][0-9.eE+-]*");
+        int count = 0;
+        for (String file : new String[]{"data/A0", "data/A1", "data/A2", "data/A3"})
+        {
+            Matcher m = number.matcher(new String(Files.readAllBytes(Paths.get(file))));
+            while (m.find())
+            {
+                char[] chars = m.group().toCharArray();
+                double value = GraphReader.parse(chars, chars.length);
+                assertFalse(Double.isNaN(value), m.group());
+                assertEquals(Double.doubleToLongBits(Double.parseDouble(m.group())), Double.doubleToLongBits(value), m.group());
+                count++;
+            }
+        }
+        assertTrue(count > 1000);
+        Random r = new Random(3);
+        for (int i = 0; i < 100000; i++)
+        {
+            String s = i % 2 == 0 ? Double.toString(r.nextDouble() * 1000 - 500)
+                    : Long.toString(r.nextLong() >>> 4) + "e" + (r.nextInt(600) - 300);
+            char[] chars = s.toCharArray();
+            double value = GraphReader.parse(chars, chars.length);
+            if (!Double.isNaN(value)) //not decided (subnormal or infinite), left to Double.parseDouble
+                assertEquals(Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(value), s);
+        }
+        char[] tooLong = "1.23456789012345678901".toCharArray();
+        assertTrue(Double.isNaN(GraphReader.parse(tooLong, tooLong.length)));
+    }
+
+    @Test
+    void nodesFirst() throws IOException
+    {
+        String json = "{ \"Nodes\" : [ {\"id\":1, \"pos\":\"1.5, 2e1,0\", \"extra\":[1,{\"a\":null}]}, {\"pos\":\"-3,4.25,0\",\"id\":2} ],"
+                + " \"Other\": \"x\\\"y\", \"Edges\":[{\"w\":0.125,\"src\":1,\"dest\":2}] }";
+        Graph graph = Graph.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(graph.nodeSize(), 2);
+        assertEquals(graph.getNode(1).getLocation().y(), 20.0);
+        assertEquals(graph.getNode(2).getLocation().x(), -3.0);
+        assertEquals(graph.getEdge(1, 2).getWeight(), 0.125);
+    }
+
+    @Test
+    void badJson()
+    {
+        assertThrows(JSONException.class, () -> Graph.load(new StringReader("{\"Nodes\":[{\"id\":1}]}")));
+        assertThrows(JSONException.class, () -> Graph.load(new StringReader("{\"Edges\":[{\"src\":1,\"w\":1,\"dest\":2}]}")));
+        assertThrows(JSONException.class, () -> new Graph("{\"Nodes\":[{\"id\":1,\"pos\":\"1,2,3\"}"));
+    }
+}
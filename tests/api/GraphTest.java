@@ -5,7 +5,11 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class GraphTest
 {
@@ -93,4 +97,153 @@ class GraphTest
         assert (graph.edgeSize() == edgeSize - 1);
         assert (graph.getMC() == mc+1);
     }
+
+    @Test
+    void edgeIterNode()
+    {
+        graph.connect(0, 5, 1.0);
+        Iterator<Edge> edgeIter = graph.edgeIter(0);
+        int count = 0;
+        while (edgeIter.hasNext())
+        {
+            Edge edge = edgeIter.next();
+            assert (edge.getSrc() == 0);
+            assert (graph.getEdge(0, edge.getDest()) == edge);
+            count++;
+        }
+        assert (count == 3);
+    }
+
+    @Test
+    void removeNodeMC()
+    {
+        int mc = graph.getMC();
+        int edgeSize = graph.edgeSize();
+        graph.removeNode(1); //node 1 has 2 out edges and 2 in edges
+        assert (graph.getMC() == mc+1);
+        assert (graph.edgeSize() == edgeSize - 4);
+        assert (graph.getEdge(0, 1) == null && graph.getEdge(1, 2) == null);
+        assert (graph.removeNode(1) == null);
+        assert (graph.getMC() == mc+1);
+    }
+
+    @Test
+    void batch()
+    {
+        int mc = graph.getMC();
+        try (Graph.Batch batch = graph.batch(100, 200))
+        {
+            for (int i = 100; i < 200; i++)
+                batch.addNode(new Node(i, i, i, 0));
+            for (int i = 100; i < 199; i++)
+                batch.connect(i, i+1, 1.0);
+            batch.removeEdge(0, 1);
+            assert (graph.getMC() == mc);
+        }
+        assert (graph.getMC() == mc+1);
+        assert (graph.nodeSize() == 111);
+        assert (graph.getEdge(150, 151) != null);
+        assert (graph.getEdge(0, 1) == null);
+    }
+
+    @Test
+    void snapshot()
+    {
+        CsrGraph first = graph.snapshot();
+        assert (graph.snapshot() == first);
+        graph.connect(0, 5, 1.0);
+        CsrGraph second = graph.snapshot();
+        assert (second != first);
+        assert (second.edgeSize() == first.edgeSize() + 1);
+        try (Graph.Batch batch = graph.batch())
+        {
+            batch.removeEdge(0, 5);
+            assert (graph.snapshot() == second); //readers do not see an open batch
+        }
+        assert (graph.snapshot().edgeSize() == first.edgeSize());
+    }
+
+    @Test
+    void snapshotStaleBeforeBatch()
+    {// the last version is older than the changes before the batch, the state from just before it is published.
+        CsrGraph old = graph.snapshot();
+        graph.connect(0, 5, 1.0);
+        int edges = graph.edgeSize();
+        try (Graph.Batch batch = graph.batch())
+        {
+            batch.removeEdge(0, 1);
+            batch.addNode(new Node(500, 0, 0, 0));
+            CsrGraph during = graph.snapshot();
+            assert (during != old);
+            assert (during.edgeSize() == edges);
+            assert (during.indexOf(500) < 0);
+        }
+        assert (graph.snapshot().edgeSize() == edges - 1);
+    }
+
+    @Test
+    void snapshotConcurrentReaders() throws InterruptedException
+    {
+        AtomicBoolean failed = new AtomicBoolean(false);
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++)
+        {
+            readers[r] = new Thread(() -> {
+                try
+                {
+                    while (!done.get())
+                    {
+                        CsrGraph s = graph.snapshot();
+                        int count = 0;
+                        for (int i = 0; i < s.nodeSize(); i++)
+                            count += s.outEnd(i) - s.outStart(i);
+                        if (count != s.edgeSize() || s.node(0).getKey() != s.id(0))
+                            failed.set(true);
+                    }
+                }
+                catch (RuntimeException e)
+                {
+                    failed.set(true);
+                }
+            });
+            readers[r].start();
+        }
+        for (int i = 0; i < 2000; i++)
+        {
+            graph.connect(i % 11, (i * 7) % 11, 1.0 + i);
+            if (i % 3 == 0)
+                graph.removeEdge(i % 11, (i * 7) % 11);
+        }
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+        assert (!failed.get());
+    }
+
+    @Test
+    void iteratorChanged()
+    {
+        Iterator<Edge> edgeIter = graph.edgeIter();
+        graph.connect(0, 5, 1.0);
+        assertThrows(ConcurrentModificationException.class, edgeIter::hasNext);
+    }
+
+    @Test
+    void nodeCoordinates()
+    {
+        Node node = graph.getNode(3);
+        CsrGraph before = graph.snapshot();
+        node.setLocation(new Location(1.5, 2.5, 3.5));
+        assert (graph.getNode(3).getLocation().x() == 1.5);
+        CsrGraph after = graph.snapshot();
+        assert (after != before);
+        assert (after.x(after.indexOf(3)) == 1.5);
+        assert (before.x(before.indexOf(3)) != 1.5);
+
+        graph.removeNode(3);
+        graph.addNode(new Node(40, 7, 8, 9)); //uses the slot of the removed node
+        assert (node.getLocation().y() == 2.5);
+        assert (graph.getNode(40).getLocation().y() == 8);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedHeapTest
+{
+    @Test
+    void pollOrder()
+    {
+        IndexedHeap heap = new IndexedHeap();
+        heap.ensureCapacity(1000);
+        Random r = new Random(4);
+        double[] key = new double[1000];
+        for (int v = 0; v < 1000; v++)
+        {
+            key[v] = r.nextDouble();
+            heap.insert(v, key[v]);
+        }
+        for (int v = 0; v < 1000; v += 3)
+        {
+            key[v] /= 2;
+            heap.decreaseKey(v, key[v]);
+        }
+        double last = -1;
+        int count = 0;
+        while (!heap.isEmpty())
+        {
+            double min = heap.minKey();
+            int v = heap.pollMin();
+            assertEquals(min, key[v]);
+            assertFalse(heap.contains(v));
+            assert (min >= last);
+            last = min;
+            count++;
+        }
+        assertEquals(count, 1000);
+    }
+}
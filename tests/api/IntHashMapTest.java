@@ -0,0 +1,42 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest
+{
+    @Test
+    void randomAgainstHashMap()
+    {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(2);
+        for (int i = 0; i < 20000; i++)
+        {
+            int key = r.nextInt(1000) - 500;
+            if (r.nextInt(3) == 0)
+                assertEquals(map.remove(key), expected.remove(key));
+            else
+                assertEquals(map.put(key, i), expected.put(key, i));
+        }
+        assertEquals(map.size(), expected.size());
+        for (Integer key : expected.keySet())
+            assertEquals(map.get(key), expected.get(key));
+    }
+
+    @Test
+    void ensureCapacity()
+    {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        map.put(3, 3);
+        map.ensureCapacity(1000);
+        for (int i = 0; i < 1000; i++)
+            map.put(i, i);
+        assertEquals(map.size(), 1000);
+        assertEquals(map.get(3), 3);
+    }
+}
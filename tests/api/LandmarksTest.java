@@ -0,0 +1,52 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LandmarksTest
+{
+    @Test
+    void lowerBounds()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(200, 800, 22).snapshot();
+        for (LandmarkSelection selection : LandmarkSelection.values())
+        {
+            Landmarks landmarks = Landmarks.build(g, 6, selection, new Dijkstra());
+            int[] chosen = landmarks.landmarks();
+            assertEquals(6, chosen.length);
+            assertEquals(6, java.util.Arrays.stream(chosen).distinct().count());
+            Dijkstra dijkstra = new Dijkstra();
+            for (int src = 0; src < g.nodeSize(); src += 9)
+            {
+                double[] expected = DijkstraTest.bellmanFord(g, src);
+                for (int t = 0; t < g.nodeSize(); t++)
+                {
+                    if (expected[t] != Dijkstra.INFINITY)
+                        assertTrue(landmarks.estimate(src, t) <= expected[t] + 1e-9);
+                    int target = t;
+                    assertEquals(expected[t], dijkstra.searchAStar(g, src, t, v -> landmarks.estimate(v, target)), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void searchSpace()
+    {
+        CsrGraph grid = DijkstraTest.gridGraph(40).snapshot();
+        Landmarks landmarks = Landmarks.build(grid, 8, LandmarkSelection.AVOID, new Dijkstra());
+        Dijkstra dijkstra = new Dijkstra();
+        int plain = 0, alt = 0;
+        for (int src = 0; src < grid.nodeSize(); src += 97)
+            for (int t = 0; t < grid.nodeSize(); t += 89)
+            {
+                double expected = dijkstra.search(grid, src, t);
+                plain += dijkstra.settledCount();
+                int target = t;
+                assertEquals(expected, dijkstra.searchAStar(grid, src, t, v -> landmarks.estimate(v, target)), 1e-9);
+                alt += dijkstra.settledCount();
+            }
+        assertTrue(alt < plain / 2, alt + " of " + plain);
+    }
+}
@@ -0,0 +1,74 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest
+{
+    @Test
+    void putGet()
+    {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(Graph.edgeKey(2, 4), "a"));
+        assertEquals(map.put(Graph.edgeKey(2, 4), "b"), "a");
+        assertEquals(map.get(Graph.edgeKey(2, 4)), "b");
+        assertNull(map.get(Graph.edgeKey(4, 2)));
+        assertEquals(map.size(), 1);
+    }
+
+    @Test
+    void remove()
+    {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(1L, "a");
+        map.put(17L, "b");
+        assertEquals(map.remove(1L), "a");
+        assertNull(map.remove(1L));
+        assertEquals(map.get(17L), "b");
+        assertEquals(map.size(), 1);
+    }
+
+    @Test
+    void randomAgainstHashMap()
+    {
+        LongHashMap<Long> map = new LongHashMap<>();
+        HashMap<Long, Long> expected = new HashMap<>();
+        Random r = new Random(1);
+        for (int i = 0; i < 20000; i++)
+        {
+            long key = Graph.edgeKey(r.nextInt(300), r.nextInt(300));
+            if (r.nextInt(3) == 0)
+                assertEquals(map.remove(key), expected.remove(key));
+            else
+                assertEquals(map.put(key, (long) i), expected.put(key, (long) i));
+        }
+        assertEquals(map.size(), expected.size());
+        for (Long key : expected.keySet())
+            assertEquals(map.get(key), expected.get(key));
+    }
+
+    @Test
+    void values()
+    {
+        LongHashMap<Integer> map = new LongHashMap<>(100);
+        for (int i = 0; i < 100; i++)
+            map.put(i, i);
+        Iterator<Integer> iter = map.values();
+        int count = 0;
+        while (iter.hasNext())
+        {
+            if (iter.next() % 2 == 0)
+                iter.remove();
+            count++;
+        }
+        assertEquals(count, 100);
+        assertEquals(map.size(), 50);
+        assertNull(map.get(4));
+        assertEquals(map.get(5), 5);
+    }
+}
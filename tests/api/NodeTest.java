@@ -32,4 +32,21 @@ class NodeTest {
         n.setLocation(p2);
         assertEquals(n.getLocation().x(),1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void locationView()
+    {
+        Graph graph = new Graph();
+        graph.addNode(new Node(7, 1, 2, 3));
+        Node node = graph.getNode(7);
+        Location loc = node.getLocation();
+        assertSame(loc, node.getLocation()); //no new Location for every call
+        node.setLocation(new Location(4, 5, 6));
+        assertEquals(4, loc.x());
+        assertEquals(6, loc.z());
+        graph.removeNode(7);
+        graph.addNode(new Node(8, 9, 9, 9)); //may take the slot of the removed node
+        assertEquals(5, loc.y());
+        assertEquals(4, node.getLocation().x());
+    }
+}
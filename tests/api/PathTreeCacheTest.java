@@ -0,0 +1,122 @@
+package api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathTreeCacheTest
+{
+    @Test
+    void lru()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(50, 200, 14).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        PathTreeCache cache = new PathTreeCache(2);
+        ShortestPathTree first = cache.get(g, 0, dijkstra);
+        assertSame(first, cache.get(g, 0, dijkstra));
+        cache.get(g, 1, dijkstra);
+        cache.get(g, 0, dijkstra); //0 is now the most recently used
+        cache.get(g, 2, dijkstra); //evicts 1
+        assertEquals(2, cache.hits());
+        assertEquals(3, cache.misses());
+        assertEquals(1, cache.evictions());
+        assertSame(first, cache.get(g, 0, dijkstra));
+        assertNotNull(cache.get(g, 1, dijkstra));
+        assertEquals(4, cache.misses());
+        assertEquals(2, cache.size());
+
+        cache.setCapacity(1);
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.evictions());
+        cache.setCapacity(0);
+        assertNull(cache.get(g, 0, dijkstra));
+    }
+
+    @Test
+    void lookup()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(50, 200, 14).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        PathTreeCache cache = new PathTreeCache(2);
+        assertNull(cache.lookup(g, 0, dijkstra)); //the first miss does not build a tree
+        ShortestPathTree tree = cache.lookup(g, 0, dijkstra);
+        assertNotNull(tree);
+        assertSame(tree, cache.lookup(g, 0, dijkstra));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.size());
+        assertNull(cache.lookup(DijkstraTest.randomGraph(50, 200, 15).snapshot(), 1, dijkstra)); //a new snapshot forgets the misses
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void newSnapshot()
+    {
+        Graph graph = DijkstraTest.randomGraph(50, 200, 15);
+        CsrGraph g = graph.snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        PathTreeCache cache = new PathTreeCache(4);
+        ShortestPathTree old = cache.get(g, 0, dijkstra);
+        graph.connect(0, 3, 0.001);
+        CsrGraph changed = graph.snapshot();
+        ShortestPathTree tree = cache.get(changed, 0, dijkstra);
+        assertNotSame(old, tree);
+        assertSame(changed, tree.getGraph());
+        assertEquals(0.001, tree.distance(changed.indexOf(3)), 1e-12);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void concurrentLookups() throws InterruptedException
+    {// the hits and the misses do not lock, every returned tree must still be the tree of its source.
+        CsrGraph g = DijkstraTest.randomGraph(60, 240, 17).snapshot();
+        PathTreeCache cache = new PathTreeCache(3);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                Dijkstra dijkstra = new Dijkstra();
+                Random r = new Random(seed);
+                for (int i = 0; i < 2000; i++)
+                {
+                    int src = r.nextInt(6);
+                    ShortestPathTree tree = cache.lookup(g, src, dijkstra);
+                    if (tree != null && (tree.source() != src || tree.getGraph() != g || tree.distance(src) != 0))
+                        failed.set(true);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        assertFalse(failed.get());
+        assertEquals(4 * 2000, cache.hits() + cache.misses());
+        assertTrue(cache.size() <= 3);
+    }
+
+    @Test
+    void tree()
+    {
+        CsrGraph g = DijkstraTest.randomGraph(80, 300, 16).snapshot();
+        Dijkstra dijkstra = new Dijkstra();
+        ShortestPathTree tree = new ShortestPathTree(g, 5, dijkstra);
+        double[] expected = DijkstraTest.bellmanFord(g, 5);
+        for (int v = 0; v < g.nodeSize(); v++)
+        {
+            assertEquals(expected[v], tree.distance(v), 1e-9);
+            int[] path = tree.path(v);
+            if (expected[v] == Dijkstra.INFINITY)
+                assertNull(path);
+            else
+            {
+                assertEquals(5, path[0]);
+                assertEquals(v, path[path.length - 1]);
+            }
+        }
+    }
+}
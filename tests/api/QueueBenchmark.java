@@ -0,0 +1,42 @@
+package api;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * This class is a small benchmark of the queue strategies (not a test): it runs full searches from many sources
+ * on the data maps and on a large random graph, and prints the time of every QueueType.
+ * run it with the test classpath: java api.QueueBenchmark
+ */
+public class QueueBenchmark
+{
+    public static void main(String[] args) throws IOException
+    {
+        String[] names = {"data/A0", "data/A1", "data/A2", "data/A3", "random 100000"};
+        CsrGraph[] graphs = new CsrGraph[names.length];
+        for (int i = 0; i < 4; i++)
+            graphs[i] = Graph.load(Paths.get(names[i])).snapshot();
+        graphs[4] = DijkstraTest.randomGraph(100000, 400000, 1).snapshot();
+        for (int i = 0; i < graphs.length; i++)
+        {
+            CsrGraph g = graphs[i];
+            int sources = Math.min(g.nodeSize(), 50);
+            System.out.println(names[i] + " (" + g.nodeSize() + " nodes, " + g.edgeSize() + " edges, " + sources + " searches)");
+            for (QueueType type : QueueType.values())
+            {
+                Dijkstra dijkstra = new Dijkstra(type);
+                for (int src = 0; src < sources; src++) //warm up
+                    dijkstra.search(g, src, -1);
+                long start = System.nanoTime();
+                double sum = 0;
+                for (int src = 0; src < sources; src++)
+                {
+                    dijkstra.search(g, src * (g.nodeSize() / sources), -1);
+                    sum += dijkstra.maxSettled();
+                }
+                long time = System.nanoTime() - start;
+                System.out.printf("  %-14s %10.3f ms  (check %.3f)%n", type, time / 1e6, sum);
+            }
+        }
+    }
+}